@@ -0,0 +1,59 @@
+package com.appointment.system.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Value("${app.onboarding.worker-threads:2}")
+    private int onboardingWorkerThreads;
+
+    @Value("${app.slots.horizon.worker-threads:4}")
+    private int horizonWorkerThreads;
+
+    @Value("${app.notifications.sender-threads:8}")
+    private int notificationSenderThreads;
+
+    // Runs slot materialization for newly registered doctors off the request thread
+    @Bean
+    public ThreadPoolTaskExecutor slotGenerationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(onboardingWorkerThreads);
+        executor.setMaxPoolSize(onboardingWorkerThreads);
+        executor.setThreadNamePrefix("slot-generation-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Bounded pool the nightly horizon job partitions doctors across
+    @Bean
+    public ThreadPoolTaskExecutor slotHorizonExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(horizonWorkerThreads);
+        executor.setMaxPoolSize(horizonWorkerThreads);
+        executor.setThreadNamePrefix("slot-horizon-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Bounded sender pool; when the queue is full the dispatcher thread sends itself, which applies backpressure
+    @Bean
+    public ThreadPoolTaskExecutor notificationSenderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(notificationSenderThreads);
+        executor.setMaxPoolSize(notificationSenderThreads);
+        executor.setQueueCapacity(notificationSenderThreads * 4);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("notification-sender-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
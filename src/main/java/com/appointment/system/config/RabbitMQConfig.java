@@ -1,12 +1,23 @@
 package com.appointment.system.config;
 
+import com.appointment.system.service.BookingRequestService;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 @ConditionalOnProperty(name = "app.rabbitmq.enabled", havingValue = "true", matchIfMissing = false)
@@ -16,13 +27,80 @@ public class RabbitMQConfig {
     public static final String APPOINTMENT_BOOKING_EXCHANGE = "appointment.booking.exchange";
     public static final String APPOINTMENT_BOOKING_ROUTING_KEY = "appointment.booking.key";
 
+    // Poison booking messages (malformed, or still failing after listener retries) end up here for inspection
+    public static final String APPOINTMENT_BOOKING_DLX = "appointment.booking.dlx";
+    public static final String APPOINTMENT_BOOKING_DLQ = "appointment.booking.dlq";
+
+    // Slot-partitioned booking queues: each slot always lands on the same queue, consumed by one active consumer
+    public static final String APPOINTMENT_BOOKING_PARTITION_EXCHANGE = "appointment.booking.partitioned";
+    public static final String APPOINTMENT_BOOKING_PARTITION_QUEUE_PREFIX = "appointment.booking.partition.";
+
     public static final String NOTIFICATION_QUEUE = "notification.queue";
     public static final String NOTIFICATION_EXCHANGE = "notification.exchange";
     public static final String NOTIFICATION_ROUTING_KEY = "notification.key";
 
     @Bean
     public Queue appointmentBookingQueue() {
-        return QueueBuilder.durable(APPOINTMENT_BOOKING_QUEUE).build();
+        return QueueBuilder.durable(APPOINTMENT_BOOKING_QUEUE)
+                .deadLetterExchange(APPOINTMENT_BOOKING_DLX)
+                .deadLetterRoutingKey(APPOINTMENT_BOOKING_DLQ)
+                .build();
+    }
+
+    @Bean
+    public Queue appointmentBookingDeadLetterQueue() {
+        return QueueBuilder.durable(APPOINTMENT_BOOKING_DLQ).build();
+    }
+
+    @Bean
+    public DirectExchange appointmentBookingDeadLetterExchange() {
+        return new DirectExchange(APPOINTMENT_BOOKING_DLX);
+    }
+
+    @Bean
+    public Binding appointmentBookingDeadLetterBinding() {
+        return BindingBuilder
+                .bind(appointmentBookingDeadLetterQueue())
+                .to(appointmentBookingDeadLetterExchange())
+                .with(APPOINTMENT_BOOKING_DLQ);
+    }
+
+    @Bean
+    public Declarables appointmentBookingPartitions(@Value("${app.booking.partitions:8}") int partitions) {
+        List<Declarable> declarables = new ArrayList<>();
+        DirectExchange exchange = new DirectExchange(APPOINTMENT_BOOKING_PARTITION_EXCHANGE);
+        declarables.add(exchange);
+        for (int partition = 0; partition < partitions; partition++) {
+            Queue queue = QueueBuilder.durable(partitionQueue(partition))
+                    .singleActiveConsumer()
+                    .deadLetterExchange(APPOINTMENT_BOOKING_DLX)
+                    .deadLetterRoutingKey(APPOINTMENT_BOOKING_DLQ)
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(exchange).with(partitionRoutingKey(partition)));
+        }
+        return new Declarables(declarables);
+    }
+
+    public static String partitionQueue(int partition) {
+        return APPOINTMENT_BOOKING_PARTITION_QUEUE_PREFIX + partition;
+    }
+
+    public static String partitionRoutingKey(int partition) {
+        return "partition." + partition;
+    }
+
+    // Jump consistent hash: growing the partition count only moves about 1/n of the slots to the new partition
+    public static int partitionOf(Long slotId, int partitions) {
+        long key = slotId;
+        long bucket = -1;
+        long next = 0;
+        while (next < partitions) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
     }
 
     @Bean
@@ -65,6 +143,57 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(messageConverter());
+        // Unroutable messages come back to the publisher instead of being dropped
+        rabbitTemplate.setMandatory(true);
         return rabbitTemplate;
     }
+
+    // Used by the listener retry interceptor once retries are exhausted: record the failure, then dead-letter the message
+    @Bean
+    public MessageRecoverer bookingMessageRecoverer(ObjectProvider<BookingRequestService> bookingRequestService) {
+        return new RejectAndDontRequeueRecoverer() {
+            @Override
+            public void recover(Message message, Throwable cause) {
+                String requestId = message.getMessageProperties().getMessageId();
+                if (requestId != null) {
+                    String reason = cause.getCause() != null ? cause.getCause().getMessage() : cause.getMessage();
+                    bookingRequestService.ifAvailable(service -> service.fail(requestId, "Dead-lettered: " + reason));
+                }
+                super.recover(message, cause);
+            }
+        };
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            ObjectProvider<SimpleAsyncTaskExecutor> virtualThreadExecutor) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        // Run listeners on virtual threads when VirtualThreadConfig is active
+        virtualThreadExecutor.ifAvailable(factory::setTaskExecutor);
+        return factory;
+    }
+
+    // Partition containers in batch mode: each delivery is up to batch-size messages, or fewer after receive-timeout
+    @Bean
+    public SimpleRabbitListenerContainerFactory bookingBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            ObjectProvider<SimpleAsyncTaskExecutor> virtualThreadExecutor,
+            @Value("${app.booking.batch.size:100}") int batchSize,
+            @Value("${app.booking.batch.receive-timeout-ms:100}") long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        // The batch listener dead-letters failing messages itself, so no retry advice
+        factory.setAdviceChain();
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        virtualThreadExecutor.ifAvailable(factory::setTaskExecutor);
+        return factory;
+    }
 }
@@ -0,0 +1,50 @@
+package com.appointment.system.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadFactory;
+
+// Opt-in: requires a Java 21 runtime (build with -Pjava21) and app.virtual-threads.enabled=true
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true", matchIfMissing = false)
+public class VirtualThreadConfig {
+
+    // Shared by Tomcat and the RabbitMQ listener container: one virtual thread per task
+    @Bean
+    public SimpleAsyncTaskExecutor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+        executor.setThreadFactory(virtualThreadFactory("virtual-"));
+        return executor;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(SimpleAsyncTaskExecutor virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    // Replaces the auto-configured scheduler so @Scheduled jobs also run on virtual threads
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadFactory(virtualThreadFactory("scheduling-virtual-"));
+        return scheduler;
+    }
+
+    // Compiled against Java 17, so the Java 21 Thread.ofVirtual() API is reached reflectively
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require a Java 21 runtime", e);
+        }
+    }
+}
@@ -5,9 +5,17 @@ import com.appointment.system.entity.Appointment;
 import com.appointment.system.entity.AppointmentSlot;
 import com.appointment.system.entity.User;
 import com.appointment.system.service.AppointmentService;
+import com.appointment.system.service.BookingAdmissionControl;
+import com.appointment.system.service.IdempotencyStore;
 import com.appointment.system.service.SlotGenerationService;
+import com.appointment.system.service.SlotHoldService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -28,13 +36,34 @@ public class AppointmentController {
     @Autowired
     private SlotGenerationService slotGenerationService;
 
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private BookingAdmissionControl bookingAdmissionControl;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/book")
     @PreAuthorize("hasRole('PATIENT')")
-    public ResponseEntity<Appointment> bookAppointment(
+    public ResponseEntity<?> bookAppointment(
             @Valid @RequestBody BookAppointmentRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
+        User patient = (User) authentication.getPrincipal();
+        if (idempotencyKey != null) {
+            return bookIdempotently(patient, request, idempotencyKey);
+        }
+
+        BookingAdmissionControl.Permit permit = bookingAdmissionControl.tryAcquire(patient.getId(), request.getSlotId());
+        if (!permit.admitted()) {
+            return tooManyRequests(permit);
+        }
         try {
-            User patient = (User) authentication.getPrincipal();
             Appointment appointment = appointmentService.bookAppointment(
                 patient.getId(), 
                 request.getSlotId(), 
@@ -43,9 +72,114 @@ public class AppointmentController {
             return ResponseEntity.ok(appointment);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
+        } finally {
+            bookingAdmissionControl.release(permit);
+        }
+    }
+
+    // Retries carrying the same key get the first successful response back without re-entering the booking path
+    private ResponseEntity<?> bookIdempotently(User patient, BookAppointmentRequest request, String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Canonical JSON of the request, so null notes, the text "null" and notes containing separators all differ
+        String fingerprint;
+        try {
+            fingerprint = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        IdempotencyStore.Claim claim = idempotencyStore.begin(patient.getId(), idempotencyKey, fingerprint);
+        switch (claim.state()) {
+            case REPLAY:
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotent-Replayed", "true")
+                        .body(claim.body());
+            case IN_PROGRESS:
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            case MISMATCH:
+                return ResponseEntity.unprocessableEntity().build();
+            default:
+                break;
+        }
+
+        // Replays above are cheap, so only fresh attempts go through admission
+        BookingAdmissionControl.Permit permit = bookingAdmissionControl.tryAcquire(patient.getId(), request.getSlotId());
+        if (!permit.admitted()) {
+            idempotencyStore.abandon(patient.getId(), idempotencyKey);
+            return tooManyRequests(permit);
+        }
+        try {
+            Appointment appointment = appointmentService.bookAppointment(
+                patient.getId(),
+                request.getSlotId(),
+                request.getPatientNotes()
+            );
+            String body = objectMapper.writeValueAsString(appointment);
+            idempotencyStore.complete(patient.getId(), idempotencyKey, fingerprint, body);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (Exception e) {
+            idempotencyStore.abandon(patient.getId(), idempotencyKey);
+            return ResponseEntity.badRequest().build();
+        } finally {
+            bookingAdmissionControl.release(permit);
         }
     }
+
+    private static ResponseEntity<?> tooManyRequests(BookingAdmissionControl.Permit permit) {
+        long retryAfterSeconds = Math.max(1, (permit.retryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build();
+    }
     
+    // Reserve-then-confirm: holds the slot for app.booking.hold-minutes while the patient completes the booking
+    @PostMapping("/holds")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<AppointmentSlot> holdSlot(
+            @Valid @RequestBody BookAppointmentRequest request,
+            Authentication authentication) {
+        try {
+            User patient = (User) authentication.getPrincipal();
+            AppointmentSlot slot = slotHoldService.hold(patient.getId(), request.getSlotId());
+            return ResponseEntity.ok(slot);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/holds/confirm")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<Appointment> confirmHold(
+            @Valid @RequestBody BookAppointmentRequest request,
+            Authentication authentication) {
+        try {
+            User patient = (User) authentication.getPrincipal();
+            Appointment appointment = slotHoldService.confirm(
+                patient.getId(),
+                request.getSlotId(),
+                request.getPatientNotes()
+            );
+            return ResponseEntity.ok(appointment);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/holds/{slotId}")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<Void> releaseHold(@PathVariable Long slotId, Authentication authentication) {
+        try {
+            User patient = (User) authentication.getPrincipal();
+            slotHoldService.release(patient.getId(), slotId);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/patient/my-appointments")
     @PreAuthorize("hasRole('PATIENT')")
     public ResponseEntity<List<Appointment>> getMyAppointments(Authentication authentication) {
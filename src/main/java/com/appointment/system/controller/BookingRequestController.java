@@ -0,0 +1,54 @@
+package com.appointment.system.controller;
+
+import com.appointment.system.dto.request.BookAppointmentRequest;
+import com.appointment.system.entity.BookingRequest;
+import com.appointment.system.entity.User;
+import com.appointment.system.service.BookingRequestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/appointments")
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "app.rabbitmq.enabled", havingValue = "true", matchIfMissing = false)
+public class BookingRequestController {
+
+    @Autowired
+    private BookingRequestService bookingRequestService;
+
+    // Queues the booking and answers 202 with a request ID to poll; the slot is not held until the consumer books it
+    @PostMapping("/book-async")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<BookingRequest> bookAppointmentAsync(
+            @Valid @RequestBody BookAppointmentRequest request,
+            Authentication authentication) {
+        try {
+            User patient = (User) authentication.getPrincipal();
+            BookingRequest bookingRequest = bookingRequestService.submit(
+                patient.getId(),
+                request.getSlotId(),
+                request.getPatientNotes()
+            );
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(bookingRequest);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/requests/{requestId}")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('ADMIN')")
+    public ResponseEntity<BookingRequest> getBookingRequest(@PathVariable String requestId, Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        return bookingRequestService.getRequest(requestId)
+                .filter(request -> user.getRole() == User.Role.ADMIN || request.getPatientId().equals(user.getId()))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
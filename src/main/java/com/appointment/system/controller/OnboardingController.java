@@ -0,0 +1,36 @@
+package com.appointment.system.controller;
+
+import com.appointment.system.entity.SlotGenerationJob;
+import com.appointment.system.entity.User;
+import com.appointment.system.service.DoctorOnboardingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/onboarding")
+@CrossOrigin(origins = "*")
+public class OnboardingController {
+
+    @Autowired
+    private DoctorOnboardingService doctorOnboardingService;
+
+    @GetMapping("/status")
+    @PreAuthorize("hasRole('DOCTOR')")
+    public ResponseEntity<SlotGenerationJob> getMyOnboardingStatus(Authentication authentication) {
+        User doctor = (User) authentication.getPrincipal();
+        return doctorOnboardingService.getLatestJobForDoctor(doctor.getId())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SlotGenerationJob> getJob(@PathVariable Long jobId) {
+        return doctorOnboardingService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,57 @@
+package com.appointment.system.controller;
+
+import com.appointment.system.dto.request.JoinWaitlistRequest;
+import com.appointment.system.entity.User;
+import com.appointment.system.entity.WaitlistEntry;
+import com.appointment.system.service.WaitlistService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/appointments/waitlist")
+@CrossOrigin(origins = "*")
+public class WaitlistController {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    // Instead of polling for openings: the patient is booked into the first cancellation that day and notified
+    @PostMapping
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<WaitlistEntry> joinWaitlist(
+            @Valid @RequestBody JoinWaitlistRequest request,
+            Authentication authentication) {
+        try {
+            User patient = (User) authentication.getPrincipal();
+            WaitlistEntry entry = waitlistService.join(patient.getId(), request.getDoctorId(), request.getDate());
+            return ResponseEntity.ok(entry);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/my-entries")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<List<WaitlistEntry>> getMyEntries(Authentication authentication) {
+        User patient = (User) authentication.getPrincipal();
+        return ResponseEntity.ok(waitlistService.getPatientEntries(patient.getId()));
+    }
+
+    @DeleteMapping("/{entryId}")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Long entryId, Authentication authentication) {
+        try {
+            User patient = (User) authentication.getPrincipal();
+            waitlistService.leave(patient.getId(), entryId);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
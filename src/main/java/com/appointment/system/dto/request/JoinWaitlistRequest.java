@@ -0,0 +1,27 @@
+package com.appointment.system.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+public class JoinWaitlistRequest {
+    
+    @NotNull
+    private Long doctorId;
+    
+    @NotNull
+    private LocalDate date;
+    
+    public JoinWaitlistRequest() {}
+    
+    public JoinWaitlistRequest(Long doctorId, LocalDate date) {
+        this.doctorId = doctorId;
+        this.date = date;
+    }
+    
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+    
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+}
@@ -1,5 +1,6 @@
 package com.appointment.system.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
@@ -29,6 +30,14 @@ public class AppointmentSlot {
     @Column(name = "is_available", nullable = false)
     private Boolean isAvailable = true;
     
+    // Temporary hold by a patient (reserve-then-confirm); the hold lapses on its own once heldUntil passes
+    @JsonIgnore
+    @Column(name = "held_by")
+    private Long heldBy;
+    
+    @Column(name = "held_until")
+    private LocalDateTime heldUntil;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -70,6 +79,14 @@ public class AppointmentSlot {
     public Boolean getIsAvailable() { return isAvailable; }
     public void setIsAvailable(Boolean isAvailable) { this.isAvailable = isAvailable; }
     
+    public Long getHeldBy() { return heldBy; }
+    public void setHeldBy(Long heldBy) { this.heldBy = heldBy; }
+    
+    public LocalDateTime getHeldUntil() { return heldUntil; }
+    public void setHeldUntil(LocalDateTime heldUntil) { this.heldUntil = heldUntil; }
+    
+    public boolean isHeldAt(LocalDateTime time) { return heldUntil != null && !heldUntil.isBefore(time); }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
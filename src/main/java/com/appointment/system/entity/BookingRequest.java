@@ -0,0 +1,109 @@
+package com.appointment.system.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+// A booking accepted by the async endpoint; tracks the request from enqueue to outcome
+@Entity
+@Table(name = "booking_requests")
+public class BookingRequest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "request_id", nullable = false, unique = true, length = 36)
+    private String requestId;
+
+    @NotNull
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @NotNull
+    @Column(name = "slot_id", nullable = false)
+    private Long slotId;
+
+    @Column(name = "patient_notes", length = 1000)
+    private String patientNotes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private RequestStatus status = RequestStatus.QUEUED;
+
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // REJECTED: the booking itself was refused (slot taken, unknown patient); FAILED: it could not be processed
+    public enum RequestStatus {
+        QUEUED, CONFIRMED, REJECTED, FAILED
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public BookingRequest() {}
+
+    public BookingRequest(String requestId, Long patientId, Long slotId, String patientNotes) {
+        this.requestId = requestId;
+        this.patientId = patientId;
+        this.slotId = slotId;
+        this.patientNotes = patientNotes;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getRequestId() { return requestId; }
+    public void setRequestId(String requestId) { this.requestId = requestId; }
+
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public Long getSlotId() { return slotId; }
+    public void setSlotId(Long slotId) { this.slotId = slotId; }
+
+    public String getPatientNotes() { return patientNotes; }
+    public void setPatientNotes(String patientNotes) { this.patientNotes = patientNotes; }
+
+    public RequestStatus getStatus() { return status; }
+    public void setStatus(RequestStatus status) { this.status = status; }
+
+    public Long getAppointmentId() { return appointmentId; }
+    public void setAppointmentId(Long appointmentId) { this.appointmentId = appointmentId; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,43 @@
+package com.appointment.system.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Marks a one-time data migration as applied; the primary key makes sure only one node ever runs it
+@Entity
+@Table(name = "data_migrations")
+public class DataMigration {
+
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @Column(name = "affected_rows")
+    private Integer affectedRows;
+
+    @Column(name = "applied_at")
+    private LocalDateTime appliedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        appliedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public DataMigration() {}
+
+    public DataMigration(String name) {
+        this.name = name;
+    }
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Integer getAffectedRows() { return affectedRows; }
+    public void setAffectedRows(Integer affectedRows) { this.affectedRows = affectedRows; }
+
+    public LocalDateTime getAppliedAt() { return appliedAt; }
+    public void setAppliedAt(LocalDateTime appliedAt) { this.appliedAt = appliedAt; }
+}
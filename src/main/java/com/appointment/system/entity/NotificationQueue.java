@@ -35,9 +35,20 @@ public class NotificationQueue {
     @Column(name = "status", nullable = false)
     private NotificationStatus status = NotificationStatus.PENDING;
     
+    // Pre-rendered body; only set on rows queued before templates, which are sent as stored
     @Column(name = "message_content", length = 2000)
     private String messageContent;
     
+    // Template and its parameters (JSON), rendered when the notification is sent
+    @Column(name = "template_id", length = 64)
+    private String templateId;
+    
+    @Column(name = "template_params", length = 500)
+    private String templateParams;
+    
+    @Column(name = "locale", length = 16)
+    private String locale;
+    
     @Column(name = "sent_at")
     private LocalDateTime sentAt;
     
@@ -50,6 +61,17 @@ public class NotificationQueue {
     @Column(name = "max_retries")
     private Integer maxRetries = 3;
     
+    // Earliest time a failed notification may be retried; null until the first failure
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    // Set while a dispatcher node holds the row; an expired lease makes it claimable again
+    @Column(name = "claimed_by")
+    private String claimedBy;
+    
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -111,6 +133,15 @@ public class NotificationQueue {
     public String getMessageContent() { return messageContent; }
     public void setMessageContent(String messageContent) { this.messageContent = messageContent; }
     
+    public String getTemplateId() { return templateId; }
+    public void setTemplateId(String templateId) { this.templateId = templateId; }
+    
+    public String getTemplateParams() { return templateParams; }
+    public void setTemplateParams(String templateParams) { this.templateParams = templateParams; }
+    
+    public String getLocale() { return locale; }
+    public void setLocale(String locale) { this.locale = locale; }
+    
     public LocalDateTime getSentAt() { return sentAt; }
     public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
     
@@ -123,6 +154,15 @@ public class NotificationQueue {
     public Integer getMaxRetries() { return maxRetries; }
     public void setMaxRetries(Integer maxRetries) { this.maxRetries = maxRetries; }
     
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    
+    public String getClaimedBy() { return claimedBy; }
+    public void setClaimedBy(String claimedBy) { this.claimedBy = claimedBy; }
+    
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -0,0 +1,46 @@
+package com.appointment.system.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "slot_horizon_checkpoints")
+public class SlotHorizonCheckpoint {
+
+    // One row per doctor, keyed by the doctor's id
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "generated_through", nullable = false)
+    private LocalDate generatedThrough;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public SlotHorizonCheckpoint() {}
+
+    public SlotHorizonCheckpoint(Long doctorId, LocalDate generatedThrough) {
+        this.doctorId = doctorId;
+        this.generatedThrough = generatedThrough;
+    }
+
+    // Getters and Setters
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+
+    public LocalDate getGeneratedThrough() { return generatedThrough; }
+    public void setGeneratedThrough(LocalDate generatedThrough) { this.generatedThrough = generatedThrough; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,100 @@
+package com.appointment.system.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// A patient waiting for any slot with a doctor on a given day; the first one in line is booked into the next cancellation
+@Entity
+@Table(name = "waitlist_entries",
+       indexes = @Index(name = "idx_waitlist_doctor_day", columnList = "doctor_id, wait_date, status"))
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @NotNull
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @NotNull
+    @Column(name = "wait_date", nullable = false)
+    private LocalDate waitDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    @Column(name = "promoted_at")
+    private LocalDateTime promotedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // PROMOTED: booked into a freed slot (appointmentId); LEFT: no longer waiting, because the patient withdrew, booked
+    // that day on their own, or their account is gone
+    public enum WaitlistStatus {
+        WAITING, PROMOTED, LEFT
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public WaitlistEntry() {}
+
+    public WaitlistEntry(Long patientId, Long doctorId, LocalDate waitDate) {
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.waitDate = waitDate;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+
+    public LocalDate getWaitDate() { return waitDate; }
+    public void setWaitDate(LocalDate waitDate) { this.waitDate = waitDate; }
+
+    public WaitlistStatus getStatus() { return status; }
+    public void setStatus(WaitlistStatus status) { this.status = status; }
+
+    public Long getAppointmentId() { return appointmentId; }
+    public void setAppointmentId(Long appointmentId) { this.appointmentId = appointmentId; }
+
+    public LocalDateTime getPromotedAt() { return promotedAt; }
+    public void setPromotedAt(LocalDateTime promotedAt) { this.promotedAt = promotedAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,48 +1,174 @@
 package com.appointment.system.queue;
 
-import com.appointment.system.dto.request.BookAppointmentRequest;
+import com.appointment.system.config.RabbitMQConfig;
+import com.appointment.system.entity.Appointment;
+import com.appointment.system.entity.BookingRequest;
+import com.appointment.system.service.AppointmentService;
+import com.appointment.system.service.BookingRequestService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 @ConditionalOnProperty(name = "app.rabbitmq.enabled", havingValue = "true", matchIfMissing = false)
 public class AppointmentBookingConsumer {
     
     @Autowired
-    private com.appointment.system.service.AppointmentService appointmentService;
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private BookingRequestService bookingRequestService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Jackson2JsonMessageConverter messageConverter;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    // Batch listeners cannot reject single messages, so poison ones are republished to the dead-letter exchange
+    private RepublishMessageRecoverer deadLetterRecoverer;
+
+    @PostConstruct
+    public void createDeadLetterRecoverer() {
+        deadLetterRecoverer = new RepublishMessageRecoverer(rabbitTemplate,
+            RabbitMQConfig.APPOINTMENT_BOOKING_DLX, RabbitMQConfig.APPOINTMENT_BOOKING_DLQ);
+    }
     
-    @RabbitListener(queues = "appointment.booking.queue")
+    // Messages published before partitioning; these can race for the same slot, so they take the locked booking path
+    @RabbitListener(queues = RabbitMQConfig.APPOINTMENT_BOOKING_QUEUE)
     public void handleAppointmentBooking(BookAppointmentMessage message) {
+        process(message, false);
+    }
+
+    // Registered per partition by BookingPartitionListeners; one consumer per slot's partition, so no slot lock is needed
+    public void handlePartitionedBooking(BookAppointmentMessage message) {
+        process(message, true);
+    }
+
+    // Batch mode for a partition: books the whole drained batch in one transaction. If that fails, each message is
+    // retried alone so one bad booking cannot sink the rest; messages that still fail are dead-lettered individually.
+    public void handlePartitionedBatch(List<Message> messages) {
+        Map<String, Message> raw = new HashMap<>();
+        List<BookAppointmentMessage> bookings = new ArrayList<>();
+        for (Message message : messages) {
+            try {
+                BookAppointmentMessage booking = (BookAppointmentMessage) messageConverter.fromMessage(message);
+                if (booking.getRequestId() == null || booking.getPatientId() == null || booking.getSlotId() == null) {
+                    throw new AmqpRejectAndDontRequeueException("Malformed booking message");
+                }
+                raw.put(booking.getRequestId(), message);
+                bookings.add(booking);
+            } catch (RuntimeException e) {
+                deadLetterRecoverer.recover(message, e);
+            }
+        }
+
+        Map<String, BookingRequest.RequestStatus> statuses = new HashMap<>();
+        bookingRequestService.getRequests(raw.keySet()).forEach(request -> statuses.put(request.getRequestId(), request.getStatus()));
+
+        List<BookAppointmentMessage> pending = new ArrayList<>();
+        for (BookAppointmentMessage booking : bookings) {
+            BookingRequest.RequestStatus status = statuses.get(booking.getRequestId());
+            if (status == null) {
+                deadLetterRecoverer.recover(raw.get(booking.getRequestId()),
+                    new AmqpRejectAndDontRequeueException("Unknown booking request " + booking.getRequestId()));
+            } else if (status == BookingRequest.RequestStatus.QUEUED) {
+                pending.add(booking);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
         try {
-            appointmentService.bookAppointment(
-                message.getPatientId(),
-                message.getSlotId(),
-                message.getPatientNotes()
-            );
-            
+            List<AppointmentService.QueuedBooking> queued = pending.stream()
+                .map(b -> new AppointmentService.QueuedBooking(b.getRequestId(), b.getPatientId(), b.getSlotId(), b.getPatientNotes()))
+                .toList();
+            transactionTemplate.executeWithoutResult(status ->
+                bookingRequestService.recordOutcome(appointmentService.bookQueuedBatch(queued)));
+            System.out.println("Processed batch of " + pending.size() + " appointment bookings");
+        } catch (RuntimeException e) {
+            System.err.println("Batch of " + pending.size() + " bookings failed, processing individually: " + e.getMessage());
+            for (BookAppointmentMessage booking : pending) {
+                try {
+                    process(booking, true);
+                } catch (RuntimeException ex) {
+                    bookingRequestService.fail(booking.getRequestId(), "Dead-lettered: " + ex.getMessage());
+                    deadLetterRecoverer.recover(raw.get(booking.getRequestId()), ex);
+                }
+            }
+        }
+    }
+
+    // Infrastructure errors propagate and are retried by the container, then dead-lettered; refused bookings are recorded and acked
+    private void process(BookAppointmentMessage message, boolean partitioned) {
+        if (message.getRequestId() == null || message.getPatientId() == null || message.getSlotId() == null) {
+            throw new AmqpRejectAndDontRequeueException("Malformed booking message");
+        }
+
+        BookingRequest request = bookingRequestService.getRequest(message.getRequestId())
+                .orElseThrow(() -> new AmqpRejectAndDontRequeueException("Unknown booking request " + message.getRequestId()));
+        if (request.getStatus() != BookingRequest.RequestStatus.QUEUED) {
+            // Redelivery of a request that already has an outcome
+            return;
+        }
+
+        try {
+            // The booking and its outcome commit together, so a redelivery can never book twice
+            transactionTemplate.executeWithoutResult(status -> {
+                Appointment appointment = partitioned
+                    ? appointmentService.bookQueuedAppointment(message.getPatientId(), message.getSlotId(), message.getPatientNotes())
+                    : appointmentService.bookAppointment(message.getPatientId(), message.getSlotId(), message.getPatientNotes());
+                if (!bookingRequestService.confirm(message.getRequestId(), appointment)) {
+                    // Completed elsewhere meanwhile (e.g. failed after a missed publish confirm); roll the booking back
+                    throw new IllegalStateException("Booking request " + message.getRequestId() + " already completed");
+                }
+            });
             System.out.println("Successfully processed appointment booking for patient: " + message.getPatientId());
-            
-        } catch (Exception e) {
-            System.err.println("Failed to process appointment booking: " + e.getMessage());
-            // TODO: Implement dead letter queue or retry mechanism
+        } catch (DataAccessException | TransactionException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            System.err.println("Booking request " + message.getRequestId() + " rejected: " + e.getMessage());
+            bookingRequestService.reject(message.getRequestId(), e.getMessage());
         }
     }
     
     public static class BookAppointmentMessage {
+        private String requestId;
         private Long patientId;
         private Long slotId;
         private String patientNotes;
         
         public BookAppointmentMessage() {}
         
-        public BookAppointmentMessage(Long patientId, Long slotId, String patientNotes) {
+        public BookAppointmentMessage(String requestId, Long patientId, Long slotId, String patientNotes) {
+            this.requestId = requestId;
             this.patientId = patientId;
             this.slotId = slotId;
             this.patientNotes = patientNotes;
         }
         
+        public String getRequestId() { return requestId; }
+        public void setRequestId(String requestId) { this.requestId = requestId; }
+        
         public Long getPatientId() { return patientId; }
         public void setPatientId(Long patientId) { this.patientId = patientId; }
         
@@ -0,0 +1,62 @@
+package com.appointment.system.queue;
+
+import com.appointment.system.config.RabbitMQConfig;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.adapter.MessageListenerAdapter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// One single-threaded listener container per booking partition; with single-active-consumer queues that gives
+// one consumer per partition across the cluster, so bookings for a slot are processed one at a time, in order
+@Component
+@ConditionalOnProperty(name = "app.rabbitmq.enabled", havingValue = "true", matchIfMissing = false)
+public class BookingPartitionListeners implements RabbitListenerConfigurer {
+
+    @Autowired
+    private AppointmentBookingConsumer appointmentBookingConsumer;
+
+    @Autowired
+    @Qualifier("rabbitListenerContainerFactory")
+    private SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory;
+
+    @Autowired
+    @Qualifier("bookingBatchContainerFactory")
+    private SimpleRabbitListenerContainerFactory bookingBatchContainerFactory;
+
+    @Autowired
+    private Jackson2JsonMessageConverter messageConverter;
+
+    @Value("${app.booking.partitions:8}")
+    private int partitions;
+
+    // Drain up to app.booking.batch.size messages per transaction instead of booking one message at a time
+    @Value("${app.booking.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        for (int partition = 0; partition < partitions; partition++) {
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("booking-partition-" + partition);
+            endpoint.setQueueNames(RabbitMQConfig.partitionQueue(partition));
+            endpoint.setConcurrency("1");
+            if (batchEnabled) {
+                endpoint.setMessageListener((BatchMessageListener) appointmentBookingConsumer::handlePartitionedBatch);
+                registrar.registerEndpoint(endpoint, bookingBatchContainerFactory);
+            } else {
+                MessageListenerAdapter listener = new MessageListenerAdapter(appointmentBookingConsumer, "handlePartitionedBooking");
+                listener.setMessageConverter(messageConverter);
+                endpoint.setMessageListener(listener);
+                registrar.registerEndpoint(endpoint, rabbitListenerContainerFactory);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.appointment.system.repository;
+
+import com.appointment.system.entity.Appointment;
+import com.appointment.system.entity.NotificationQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// JDBC batch writes for batched bookings; IDENTITY ids keep Hibernate from batching these inserts
+@Repository
+public class AppointmentBulkWriter {
+
+    private static final String INSERT_APPOINTMENT_SQL =
+        "INSERT INTO appointments (patient_id, doctor_id, appointment_slot_id, appointment_date_time, status, patient_notes, " +
+        "reminder_sent, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, false, ?, ?)";
+
+    private static final String INSERT_NOTIFICATION_SQL =
+        "INSERT INTO notification_queue (appointment_id, notification_type, recipient_email, recipient_phone, scheduled_time, status, " +
+        "template_id, template_params, locale, retry_count, max_retries, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // A booked slot has exactly one CONFIRMED appointment, so the slot identifies the row just inserted
+    private static final String CONFIRMED_IDS_BY_SLOT_SQL =
+        "SELECT id, appointment_slot_id FROM appointments WHERE appointment_slot_id IN (:slotIds) AND status = 'CONFIRMED'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${app.booking.batch.size:100}")
+    private int batchSize;
+
+    // Inserts the appointments and sets their generated ids
+    public void insertAppointments(List<Appointment> appointments) {
+        if (appointments.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_APPOINTMENT_SQL, appointments, batchSize, (ps, appointment) -> {
+            ps.setLong(1, appointment.getPatient().getId());
+            ps.setLong(2, appointment.getDoctor().getId());
+            ps.setLong(3, appointment.getAppointmentSlot().getId());
+            ps.setTimestamp(4, Timestamp.valueOf(appointment.getAppointmentDateTime()));
+            ps.setString(5, appointment.getStatus().name());
+            ps.setString(6, appointment.getPatientNotes());
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+        });
+
+        Map<Long, Long> idsBySlot = new HashMap<>();
+        namedParameterJdbcTemplate.query(CONFIRMED_IDS_BY_SLOT_SQL,
+            Map.of("slotIds", appointments.stream().map(a -> a.getAppointmentSlot().getId()).toList()),
+            (RowCallbackHandler) rs -> idsBySlot.put(rs.getLong("appointment_slot_id"), rs.getLong("id")));
+        appointments.forEach(a -> a.setId(idsBySlot.get(a.getAppointmentSlot().getId())));
+    }
+
+    public void insertNotifications(List<NotificationQueue> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICATION_SQL, notifications, batchSize, (ps, notification) -> {
+            ps.setLong(1, notification.getAppointment().getId());
+            ps.setString(2, notification.getNotificationType().name());
+            ps.setString(3, notification.getRecipientEmail());
+            ps.setString(4, notification.getRecipientPhone());
+            ps.setTimestamp(5, Timestamp.valueOf(notification.getScheduledTime()));
+            ps.setString(6, notification.getStatus().name());
+            ps.setString(7, notification.getTemplateId());
+            ps.setString(8, notification.getTemplateParams());
+            ps.setString(9, notification.getLocale());
+            ps.setObject(10, notification.getRetryCount(), Types.INTEGER);
+            ps.setObject(11, notification.getMaxRetries(), Types.INTEGER);
+            ps.setTimestamp(12, now);
+            ps.setTimestamp(13, now);
+        });
+    }
+}
@@ -3,6 +3,7 @@ package com.appointment.system.repository;
 import com.appointment.system.entity.Appointment;
 import com.appointment.system.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -22,7 +23,19 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     List<Appointment> findByPatientIdAndStatusNot(Long patientId, Appointment.AppointmentStatus status);
     
     List<Appointment> findByDoctorIdAndStatusNot(Long doctorId, Appointment.AppointmentStatus status);
+
+    // Cancels at most once; returns 0 if the appointment is missing or already cancelled, so a repeated cancel can't free the slot again
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = 'CANCELLED', a.updatedAt = :now WHERE a.id = :id AND a.status <> 'CANCELLED'")
+    int markCancelled(@Param("id") Long id, @Param("now") LocalDateTime now);
     
+    @Query("SELECT COUNT(a) > 0 FROM Appointment a WHERE a.patient.id = :patientId AND a.doctor.id = :doctorId " +
+           "AND a.status = 'CONFIRMED' AND a.appointmentDateTime BETWEEN :startDate AND :endDate")
+    boolean hasConfirmedWithDoctorBetween(@Param("patientId") Long patientId,
+                                          @Param("doctorId") Long doctorId,
+                                          @Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate);
+
     @Query("SELECT a FROM Appointment a WHERE a.appointmentDateTime BETWEEN :startDate AND :endDate AND a.status = :status")
     List<Appointment> findByDateRangeAndStatus(
         @Param("startDate") LocalDateTime startDate, 
@@ -0,0 +1,59 @@
+package com.appointment.system.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public class AppointmentSlotBulkWriter {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO appointment_slots (doctor_id, slot_date_time, is_booked, is_available, created_at, updated_at) " +
+        "VALUES (?, ?, false, true, ?, ?)";
+
+    // PostgreSQL (or H2 in PostgreSQL mode): the (doctor_id, slot_date_time) unique constraint skips existing slots
+    private static final String INSERT_IF_ABSENT_SQL = INSERT_SQL + " ON CONFLICT DO NOTHING";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.slots.generation.batch-size:500}")
+    private int batchSize;
+
+    // IDENTITY ids disable Hibernate batching, so slot materialization goes straight through JDBC batches
+    public int insertSlots(Long doctorId, List<LocalDateTime> slotTimes) {
+        return write(INSERT_SQL, doctorId, slotTimes);
+    }
+
+    public int insertSlotsIfAbsent(Long doctorId, List<LocalDateTime> slotTimes) {
+        return write(INSERT_IF_ABSENT_SQL, doctorId, slotTimes);
+    }
+
+    private int write(String sql, Long doctorId, List<LocalDateTime> slotTimes) {
+        if (slotTimes.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] results = jdbcTemplate.batchUpdate(sql, slotTimes, batchSize, (ps, slotDateTime) -> {
+            ps.setLong(1, doctorId);
+            ps.setTimestamp(2, Timestamp.valueOf(slotDateTime));
+            ps.setTimestamp(3, now);
+            ps.setTimestamp(4, now);
+        });
+
+        int inserted = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched statements
+                inserted += count < 0 ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+}
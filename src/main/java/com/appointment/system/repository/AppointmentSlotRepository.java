@@ -4,12 +4,15 @@ import com.appointment.system.entity.AppointmentSlot;
 import com.appointment.system.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +22,45 @@ public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT as FROM AppointmentSlot as WHERE as.id = :id")
     Optional<AppointmentSlot> findByIdWithLock(@Param("id") Long id);
+
+    // Atomically claims a free slot; returns 0 if it was already booked, unavailable or held by another patient
+    @Modifying
+    @Query("UPDATE AppointmentSlot s SET s.isBooked = true, s.heldBy = NULL, s.heldUntil = NULL, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.isBooked = false AND s.isAvailable = true AND (s.heldUntil IS NULL OR s.heldUntil < :now OR s.heldBy = :patientId)")
+    int claimSlot(@Param("id") Long id, @Param("patientId") Long patientId, @Param("now") LocalDateTime now);
+
+    // Places (or extends) a patient's hold; returns 0 if the slot is booked, unavailable or held by someone else
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppointmentSlot s SET s.heldBy = :patientId, s.heldUntil = :until, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.isBooked = false AND s.isAvailable = true AND (s.heldUntil IS NULL OR s.heldUntil < :now OR s.heldBy = :patientId)")
+    int placeHold(@Param("id") Long id, @Param("patientId") Long patientId, @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppointmentSlot s SET s.heldBy = NULL, s.heldUntil = NULL, s.updatedAt = :now WHERE s.id = :id AND s.heldBy = :patientId AND s.isBooked = false")
+    int releaseHold(@Param("id") Long id, @Param("patientId") Long patientId, @Param("now") LocalDateTime now);
+
+    // Only clears the hold if it really lapsed; a booking or a renewed hold in the meantime is left alone
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppointmentSlot s SET s.heldBy = NULL, s.heldUntil = NULL WHERE s.id = :id AND s.heldUntil < :now")
+    int clearExpiredHold(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    List<AppointmentSlot> findByHeldUntilAfter(LocalDateTime now);
+    
+    // Row-locks the still-free slots among the ids, in id order so overlapping batches cannot deadlock
+    @Query(value = "SELECT id FROM appointment_slots WHERE id IN (:ids) AND is_booked = false AND is_available = true ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockAvailableSlotIds(@Param("ids") Collection<Long> ids);
+
+    // [slotId, heldBy] for the slots among the ids that are held right now
+    @Query("SELECT s.id, s.heldBy FROM AppointmentSlot s WHERE s.id IN :ids AND s.heldUntil >= :now")
+    List<Object[]> findActiveHolders(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE AppointmentSlot s SET s.isBooked = true, s.heldBy = NULL, s.heldUntil = NULL, s.updatedAt = :now WHERE s.id IN :ids")
+    int markBooked(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
     
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT as FROM AppointmentSlot as WHERE as.doctor = :doctor AND as.slotDateTime = :slotDateTime")
@@ -30,19 +72,30 @@ public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot
     List<AppointmentSlot> findByDoctorIdAndIsBookedFalseAndIsAvailableTrueAndSlotDateTimeAfter(
         Long doctorId, LocalDateTime currentTime);
     
-    @Query("SELECT as FROM AppointmentSlot as WHERE as.doctor.id = :doctorId AND as.slotDateTime BETWEEN :startDate AND :endDate AND as.isBooked = false AND as.isAvailable = true ORDER BY as.slotDateTime")
+    @Query("SELECT as FROM AppointmentSlot as WHERE as.doctor.id = :doctorId AND as.slotDateTime BETWEEN :startDate AND :endDate AND as.isBooked = false AND as.isAvailable = true " +
+           "AND (as.heldUntil IS NULL OR as.heldUntil < :now) ORDER BY as.slotDateTime")
     List<AppointmentSlot> findAvailableSlotsByDoctorAndDateRange(
         @Param("doctorId") Long doctorId, 
         @Param("startDate") LocalDateTime startDate, 
-        @Param("endDate") LocalDateTime endDate);
+        @Param("endDate") LocalDateTime endDate,
+        @Param("now") LocalDateTime now);
     
     @Query("SELECT as FROM AppointmentSlot as WHERE as.slotDateTime BETWEEN :startDate AND :endDate AND as.isBooked = false AND as.isAvailable = true ORDER BY as.doctor.id, as.slotDateTime")
     List<AppointmentSlot> findAvailableSlotsByDateRange(
         @Param("startDate") LocalDateTime startDate, 
         @Param("endDate") LocalDateTime endDate);
     
+    @Query("SELECT as FROM AppointmentSlot as WHERE as.slotDateTime >= :startDate")
+    List<AppointmentSlot> findAllSlotsFromDate(@Param("startDate") LocalDateTime startDate);
+
     boolean existsByDoctorAndSlotDateTime(User doctor, LocalDateTime slotDateTime);
-    
+
+    @Query("SELECT as.slotDateTime FROM AppointmentSlot as WHERE as.doctor.id = :doctorId AND as.slotDateTime BETWEEN :startDate AND :endDate")
+    List<LocalDateTime> findSlotTimesByDoctorAndDateRange(
+        @Param("doctorId") Long doctorId,
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate);
+
     @Query("SELECT COUNT(as) FROM AppointmentSlot as WHERE as.doctor.id = :doctorId AND as.isBooked = true")
     long countBookedSlotsByDoctor(@Param("doctorId") Long doctorId);
 
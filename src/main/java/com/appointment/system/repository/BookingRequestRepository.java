@@ -0,0 +1,33 @@
+package com.appointment.system.repository;
+
+import com.appointment.system.entity.BookingRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookingRequestRepository extends JpaRepository<BookingRequest, Long> {
+
+    Optional<BookingRequest> findByRequestId(String requestId);
+
+    List<BookingRequest> findByRequestIdIn(Collection<String> requestIds);
+
+    // Records the outcome once; returns 0 if the request was already completed (e.g. a redelivered message)
+    @Modifying
+    @Transactional
+    @Query("UPDATE BookingRequest b SET b.status = :status, b.appointmentId = :appointmentId, b.errorMessage = :errorMessage, " +
+           "b.completedAt = :now, b.updatedAt = :now WHERE b.requestId = :requestId AND b.status = 'QUEUED'")
+    int complete(@Param("requestId") String requestId,
+                 @Param("status") BookingRequest.RequestStatus status,
+                 @Param("appointmentId") Long appointmentId,
+                 @Param("errorMessage") String errorMessage,
+                 @Param("now") LocalDateTime now);
+}
@@ -2,11 +2,14 @@ package com.appointment.system.repository;
 
 import com.appointment.system.entity.NotificationQueue;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +17,75 @@ public interface NotificationQueueRepository extends JpaRepository<NotificationQ
     
     @Query("SELECT nq FROM NotificationQueue nq WHERE nq.scheduledTime <= :currentTime AND nq.status = 'PENDING'")
     List<NotificationQueue> findPendingNotifications(@Param("currentTime") LocalDateTime currentTime);
+
+    @Query("SELECT MIN(nq.scheduledTime) FROM NotificationQueue nq WHERE nq.scheduledTime <= :currentTime AND nq.status = 'PENDING'")
+    LocalDateTime findOldestPendingScheduledTime(@Param("currentTime") LocalDateTime currentTime);
+
+    // When each pending row next becomes claimable; feeds the in-memory reminder wheel
+    @Query("SELECT COALESCE(nq.nextAttemptAt, nq.scheduledTime) FROM NotificationQueue nq " +
+           "WHERE nq.status = 'PENDING' AND COALESCE(nq.nextAttemptAt, nq.scheduledTime) <= :until")
+    List<LocalDateTime> findPendingDueTimesUntil(@Param("until") LocalDateTime until);
+
+    // Locks due, unleased rows; rows another node has locked are skipped rather than waited on
+    @Query(value = "SELECT id FROM notification_queue WHERE status = 'PENDING' AND scheduled_time <= :now " +
+                   "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+                   "AND (lease_expires_at IS NULL OR lease_expires_at < :now) " +
+                   "ORDER BY scheduled_time, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> findClaimableIdsSkipLocked(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Candidates only, for databases without SKIP LOCKED; claimIfUnleased decides which ones this node gets
+    @Query(value = "SELECT id FROM notification_queue WHERE status = 'PENDING' AND scheduled_time <= :now " +
+                   "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+                   "AND (lease_expires_at IS NULL OR lease_expires_at < :now) " +
+                   "ORDER BY scheduled_time, id LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findClaimableIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Compare-and-set claim: rows another node leased since they were read are left alone
+    @Modifying
+    @Query("UPDATE NotificationQueue nq SET nq.claimedBy = :node, nq.leaseExpiresAt = :leaseExpiresAt " +
+           "WHERE nq.id IN :ids AND nq.status = 'PENDING' AND (nq.leaseExpiresAt IS NULL OR nq.leaseExpiresAt < :now)")
+    int claimIfUnleased(@Param("ids") Collection<Long> ids, @Param("node") String node,
+                        @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt, @Param("now") LocalDateTime now);
+
+    // The rows a claimIfUnleased call actually took: its lease timestamp identifies them
+    @Query("SELECT nq.id FROM NotificationQueue nq WHERE nq.id IN :ids AND nq.claimedBy = :node AND nq.leaseExpiresAt = :leaseExpiresAt")
+    List<Long> findClaimedIds(@Param("ids") Collection<Long> ids, @Param("node") String node,
+                              @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    @Modifying
+    @Query("UPDATE NotificationQueue nq SET nq.claimedBy = :node, nq.leaseExpiresAt = :leaseExpiresAt WHERE nq.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("node") String node, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Outcome updates only apply while this node still holds the claim
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationQueue nq SET nq.status = 'SENT', nq.sentAt = :sentAt, nq.updatedAt = :sentAt, nq.claimedBy = NULL, nq.leaseExpiresAt = NULL " +
+           "WHERE nq.id IN :ids AND nq.claimedBy = :node")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("node") String node, @Param("sentAt") LocalDateTime sentAt);
+
+    // Keeps the row PENDING but holds it back until nextAttemptAt
+    @Modifying
+    @Query("UPDATE NotificationQueue nq SET nq.retryCount = COALESCE(nq.retryCount, 0) + 1, nq.nextAttemptAt = :nextAttemptAt, nq.errorMessage = :errorMessage, " +
+           "nq.updatedAt = :now, nq.claimedBy = NULL, nq.leaseExpiresAt = NULL WHERE nq.id = :id AND nq.claimedBy = :node")
+    int markForRetry(@Param("id") Long id, @Param("node") String node, @Param("errorMessage") String errorMessage,
+                     @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("now") LocalDateTime now);
+
+    // FAILED is terminal: the dead-letter state once retries are exhausted
+    @Modifying
+    @Query("UPDATE NotificationQueue nq SET nq.status = 'FAILED', nq.retryCount = COALESCE(nq.retryCount, 0) + 1, nq.errorMessage = :errorMessage, " +
+           "nq.updatedAt = :now, nq.claimedBy = NULL, nq.leaseExpiresAt = NULL WHERE nq.id = :id AND nq.claimedBy = :node")
+    int markDeadLettered(@Param("id") Long id, @Param("node") String node, @Param("errorMessage") String errorMessage, @Param("now") LocalDateTime now);
+
+    // Rows failed before retries existed still have attempts left; put them back on the queue, but only for
+    // appointments that are still confirmed and in the future
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationQueue nq SET nq.status = 'PENDING', nq.nextAttemptAt = :now, nq.updatedAt = :now " +
+           "WHERE nq.status = 'FAILED' AND nq.retryCount < nq.maxRetries AND nq.appointment.id IN " +
+           "(SELECT a.id FROM Appointment a WHERE a.status = 'CONFIRMED' AND a.appointmentDateTime > :now)")
+    int requeueFailedForRetry(@Param("now") LocalDateTime now);
     
     List<NotificationQueue> findByStatusAndRetryCountLessThan(
         NotificationQueue.NotificationStatus status, 
@@ -0,0 +1,57 @@
+package com.appointment.system.repository;
+
+import com.appointment.system.entity.SlotGenerationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SlotGenerationJobRepository extends JpaRepository<SlotGenerationJob, Long> {
+
+    Optional<SlotGenerationJob> findTopByDoctorIdOrderByCreatedAtDesc(Long doctorId);
+
+    List<SlotGenerationJob> findByStatusIn(Collection<SlotGenerationJob.JobStatus> statuses);
+
+    // RUNNING jobs whose owner stopped renewing the lease; rows from before leases existed have none and count as lapsed
+    @Query("SELECT j.id FROM SlotGenerationJob j WHERE j.status = 'RUNNING' AND (j.leaseExpiresAt IS NULL OR j.leaseExpiresAt < :now)")
+    List<Long> findExpiredRunningIds(@Param("now") LocalDateTime now);
+
+    // Takes a PENDING job, or a RUNNING one whose lease lapsed; returns 0 if another worker holds it or already finished it
+    @Modifying
+    @Transactional
+    @Query("UPDATE SlotGenerationJob j SET j.status = 'RUNNING', j.claimedBy = :nodeId, j.leaseExpiresAt = :leaseExpiresAt, " +
+           "j.startedAt = :now, j.updatedAt = :now WHERE j.id = :id AND (j.status = 'PENDING' OR " +
+           "(j.status = 'RUNNING' AND (j.leaseExpiresAt IS NULL OR j.leaseExpiresAt < :now)))")
+    int claimJob(@Param("id") Long id,
+                 @Param("nodeId") String nodeId,
+                 @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE SlotGenerationJob j SET j.leaseExpiresAt = :leaseExpiresAt WHERE j.id IN :ids AND j.claimedBy = :nodeId AND j.status = 'RUNNING'")
+    int renewLeases(@Param("ids") Collection<Long> ids,
+                    @Param("nodeId") String nodeId,
+                    @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Only the current owner can finish a job; returns 0 if the lease was lost and another node took the job over
+    @Modifying
+    @Transactional
+    @Query("UPDATE SlotGenerationJob j SET j.status = :status, j.slotsCreated = :slotsCreated, j.errorMessage = :errorMessage, " +
+           "j.claimedBy = NULL, j.leaseExpiresAt = NULL, j.completedAt = :now, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.claimedBy = :nodeId AND j.status = 'RUNNING'")
+    int finishJob(@Param("id") Long id,
+                  @Param("nodeId") String nodeId,
+                  @Param("status") SlotGenerationJob.JobStatus status,
+                  @Param("slotsCreated") Integer slotsCreated,
+                  @Param("errorMessage") String errorMessage,
+                  @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,51 @@
+package com.appointment.system.repository;
+
+import com.appointment.system.entity.WaitlistEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // Head of the line for a doctor/day, oldest first
+    @Query("SELECT w.id FROM WaitlistEntry w WHERE w.doctorId = :doctorId AND w.waitDate = :waitDate AND w.status = 'WAITING' " +
+           "AND w.patientId <> :excludedPatientId ORDER BY w.createdAt, w.id")
+    List<Long> findWaitingIds(@Param("doctorId") Long doctorId,
+                              @Param("waitDate") LocalDate waitDate,
+                              @Param("excludedPatientId") Long excludedPatientId,
+                              Pageable pageable);
+
+    // Compare-and-set on the status: exactly one cancellation can take an entry, without locking the line
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'PROMOTED', w.promotedAt = :now, w.updatedAt = :now " +
+           "WHERE w.id = :id AND w.status = 'WAITING'")
+    int promote(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.appointmentId = :appointmentId WHERE w.id = :id")
+    int attachAppointment(@Param("id") Long id, @Param("appointmentId") Long appointmentId);
+
+    // Closes an entry taken by promote() that turned out not to need the slot
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'LEFT', w.promotedAt = NULL, w.updatedAt = :now WHERE w.id = :id AND w.status = 'PROMOTED'")
+    int close(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WaitlistEntry w SET w.status = 'LEFT', w.updatedAt = :now WHERE w.id = :id AND w.patientId = :patientId AND w.status = 'WAITING'")
+    int leave(@Param("id") Long id, @Param("patientId") Long patientId, @Param("now") LocalDateTime now);
+
+    boolean existsByPatientIdAndDoctorIdAndWaitDateAndStatus(Long patientId, Long doctorId, LocalDate waitDate,
+                                                             WaitlistEntry.WaitlistStatus status);
+
+    List<WaitlistEntry> findByPatientIdAndWaitDateGreaterThanEqualOrderByWaitDate(Long patientId, LocalDate fromDate);
+}
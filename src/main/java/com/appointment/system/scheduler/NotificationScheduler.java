@@ -1,6 +1,7 @@
 package com.appointment.system.scheduler;
 
-import com.appointment.system.service.NotificationService;
+import com.appointment.system.service.NotificationDispatcher;
+import com.appointment.system.service.ReminderTimingWheel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -9,15 +10,32 @@ import org.springframework.stereotype.Component;
 public class NotificationScheduler {
 
     @Autowired
-    private NotificationService notificationService;
+    private NotificationDispatcher notificationDispatcher;
 
-    // Run every minute to check for appointment reminders
+    @Autowired
+    private ReminderTimingWheel reminderTimingWheel;
+
+    // Run every minute to check for appointment reminders (only when the timing wheel is off)
     @Scheduled(fixedRate = 60000) // 60 seconds
     public void processReminders() {
+        if (reminderTimingWheel.isEnabled()) {
+            return;
+        }
         try {
-            notificationService.processReminders();
+            notificationDispatcher.processReminders();
         } catch (Exception e) {
             System.err.println("Error processing notification reminders: " + e.getMessage());
         }
     }
+
+    // Reload upcoming due times so rows the wheel never saw (other nodes, expired leases) still fire
+    @Scheduled(fixedRateString = "${app.notifications.timing-wheel.refill-interval-ms:300000}",
+               initialDelayString = "${app.notifications.timing-wheel.refill-interval-ms:300000}")
+    public void refillReminderWheel() {
+        try {
+            reminderTimingWheel.refill();
+        } catch (Exception e) {
+            System.err.println("Error refilling reminder wheel: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package com.appointment.system.scheduler;
+
+import com.appointment.system.service.DoctorOnboardingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SlotGenerationJobScheduler {
+
+    @Autowired
+    private DoctorOnboardingService doctorOnboardingService;
+
+    // Must run well within app.onboarding.lease-seconds, or live jobs would look abandoned to other nodes
+    @Scheduled(fixedRateString = "${app.onboarding.heartbeat-ms:30000}",
+               initialDelayString = "${app.onboarding.heartbeat-ms:30000}")
+    public void maintainJobLeases() {
+        try {
+            doctorOnboardingService.maintainLeases();
+        } catch (Exception e) {
+            System.err.println("Error renewing slot generation job leases: " + e.getMessage());
+        }
+    }
+}
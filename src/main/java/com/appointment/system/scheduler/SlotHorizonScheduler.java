@@ -0,0 +1,23 @@
+package com.appointment.system.scheduler;
+
+import com.appointment.system.service.SlotHorizonService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SlotHorizonScheduler {
+
+    @Autowired
+    private SlotHorizonService slotHorizonService;
+
+    // Extend every active schedule's 30-day window by one day each night
+    @Scheduled(cron = "${app.slots.horizon.cron:0 30 2 * * *}")
+    public void extendSlotHorizon() {
+        try {
+            slotHorizonService.extendHorizon();
+        } catch (Exception e) {
+            System.err.println("Error extending slot horizon: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.appointment.system.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Sits on every authenticated request, so reads take no lock and never write; a token's expiry is checked when it is read
+@Component
+public class AuthenticatedTokenCache {
+
+    private final long ttlMillis;
+
+    private final int maxSize;
+
+    private final Map<String, CachedPrincipal> tokens = new ConcurrentHashMap<>();
+
+    // username -> its cached tokens, so evicting a user touches only that user's entries
+    private final Map<String, Set<String>> tokensByUser = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    public AuthenticatedTokenCache(@Value("${app.security.token-cache.max-size:10000}") int maxSize,
+                                   @Value("${app.security.token-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+    }
+
+    public UserDetails get(String token) {
+        CachedPrincipal cached = tokens.get(token);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt() < System.currentTimeMillis()) {
+            remove(token, cached);
+            return null;
+        }
+        return cached.principal();
+    }
+
+    // Never cache past the token's own expiry
+    public void put(String token, UserDetails principal, Date tokenExpiration) {
+        long expiresAt = Math.min(System.currentTimeMillis() + ttlMillis, tokenExpiration.getTime());
+        String username = principal.getUsername();
+        // Added inside compute so a concurrent unindex cannot drop the set between lookup and add
+        tokensByUser.compute(username, (u, userTokens) -> {
+            Set<String> updated = userTokens != null ? userTokens : ConcurrentHashMap.newKeySet();
+            updated.add(token);
+            return updated;
+        });
+        CachedPrincipal previous = tokens.put(token, new CachedPrincipal(principal, expiresAt));
+        if (previous != null && !previous.principal().getUsername().equals(username)) {
+            unindex(previous.principal().getUsername(), token);
+        }
+        if (tokens.size() > maxSize) {
+            trim();
+        }
+    }
+
+    public void evictUser(String username) {
+        Set<String> userTokens = tokensByUser.remove(username);
+        if (userTokens != null) {
+            userTokens.forEach(tokens::remove);
+        }
+    }
+
+    // One thread at a time drops expired entries, then arbitrary ones until a tenth of the room is free again, so the
+    // sweep runs once per many puts rather than on each one
+    private void trim() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            int target = maxSize - maxSize / 10;
+            tokens.forEach((token, cached) -> {
+                if (cached.expiresAt() < now) {
+                    remove(token, cached);
+                }
+            });
+            Iterator<Map.Entry<String, CachedPrincipal>> it = tokens.entrySet().iterator();
+            while (tokens.size() > target && it.hasNext()) {
+                Map.Entry<String, CachedPrincipal> entry = it.next();
+                remove(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private void remove(String token, CachedPrincipal cached) {
+        if (tokens.remove(token, cached)) {
+            unindex(cached.principal().getUsername(), token);
+        }
+    }
+
+    private void unindex(String username, String token) {
+        tokensByUser.computeIfPresent(username, (u, userTokens) -> {
+            userTokens.remove(token);
+            return userTokens.isEmpty() ? null : userTokens;
+        });
+    }
+
+    private record CachedPrincipal(UserDetails principal, long expiresAt) {}
+}
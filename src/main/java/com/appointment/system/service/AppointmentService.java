@@ -3,19 +3,30 @@ package com.appointment.system.service;
 import com.appointment.system.entity.Appointment;
 import com.appointment.system.entity.AppointmentSlot;
 import com.appointment.system.entity.User;
+import com.appointment.system.entity.WaitlistEntry;
+import com.appointment.system.repository.AppointmentBulkWriter;
 import com.appointment.system.repository.AppointmentRepository;
 import com.appointment.system.repository.AppointmentSlotRepository;
 import com.appointment.system.repository.UserRepository;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 public class AppointmentService {
@@ -29,14 +40,41 @@ public class AppointmentService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AppointmentBulkWriter appointmentBulkWriter;
+
     @Autowired(required = false)
     private RedissonClient redissonClient;
 
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private SlotLockManager slotLockManager;
+
+    @Autowired
+    private SlotClaimGate slotClaimGate;
+
+    @Autowired
+    private SlotAvailabilityIndex slotAvailabilityIndex;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    // Hand cancelled slots straight to the waitlist instead of releasing them
+    @Value("${app.waitlist.auto-promote:true}")
+    private boolean waitlistEnabled;
+
+    // "pessimistic" (lock + SELECT FOR UPDATE) or "optimistic" (single conditional UPDATE)
+    @Value("${app.booking.strategy:pessimistic}")
+    private String bookingStrategy;
+
     @Transactional
     public Appointment bookAppointment(Long patientId, Long slotId, String patientNotes) {
+        if ("optimistic".equalsIgnoreCase(bookingStrategy)) {
+            return bookAppointmentOptimistic(patientId, slotId, patientNotes);
+        }
+
         // Use Redis locking only if RedissonClient is available
         if (redissonClient != null) {
             return bookAppointmentWithRedisLock(patientId, slotId, patientNotes);
@@ -45,7 +83,114 @@ public class AppointmentService {
         }
     }
 
+    // Confirms the caller's own hold. Skips the claim gate: while the slot is held, a non-holder's /book can win the
+    // Redis claim only to fail on the hold, and the holder must not be turned away by it. The slot lock still applies.
+    @Transactional
+    public Appointment bookHeldAppointment(Long patientId, Long slotId, String patientNotes) {
+        if ("optimistic".equalsIgnoreCase(bookingStrategy)) {
+            return bookAppointmentOptimistic(patientId, slotId, patientNotes);
+        }
+        if (redissonClient != null) {
+            return bookUnderRedisLock(patientId, slotId, patientNotes);
+        }
+        return bookAppointmentWithoutRedis(patientId, slotId, patientNotes);
+    }
+
+    // For bookings already serialized per slot by the partitioned queue: skips the distributed/in-process slot lock.
+    // The row lock stays, since synchronous /book requests can still target the same slot.
+    @Transactional
+    public Appointment bookQueuedAppointment(Long patientId, Long slotId, String patientNotes) {
+        if ("optimistic".equalsIgnoreCase(bookingStrategy)) {
+            return bookAppointmentOptimistic(patientId, slotId, patientNotes);
+        }
+        return performBooking(patientId, slotId, patientNotes);
+    }
+
+    // Books a batch of queued requests in one transaction: the first request per slot wins, the free winning slots are
+    // row-locked and claimed together, and appointments and reminders go in as JDBC batches
+    @Transactional
+    public BatchOutcome bookQueuedBatch(List<QueuedBooking> bookings) {
+        Map<String, Appointment> confirmed = new LinkedHashMap<>();
+        Map<String, String> rejected = new LinkedHashMap<>();
+
+        Map<Long, QueuedBooking> bySlot = new LinkedHashMap<>();
+        for (QueuedBooking booking : bookings) {
+            if (bySlot.putIfAbsent(booking.slotId(), booking) != null) {
+                rejected.put(booking.requestId(), "Appointment slot is not available");
+            }
+        }
+
+        Set<Long> free = new HashSet<>(appointmentSlotRepository.lockAvailableSlotIds(bySlot.keySet()));
+        Map<Long, User> patients = new HashMap<>();
+        userRepository.findAllById(bySlot.values().stream().map(QueuedBooking::patientId).collect(Collectors.toSet()))
+                .forEach(patient -> patients.put(patient.getId(), patient));
+
+        // Holders only, as a projection: loading the slot entities here would leave them to be flushed one by one
+        Map<Long, Long> holders = new HashMap<>();
+        if (!free.isEmpty()) {
+            appointmentSlotRepository.findActiveHolders(free, LocalDateTime.now())
+                    .forEach(row -> holders.put((Long) row[0], (Long) row[1]));
+        }
+
+        List<QueuedBooking> winners = new ArrayList<>();
+        for (QueuedBooking booking : bySlot.values()) {
+            Long holder = holders.get(booking.slotId());
+            if (!free.contains(booking.slotId()) || (holder != null && !holder.equals(booking.patientId()))) {
+                rejected.put(booking.requestId(), "Appointment slot is not available");
+            } else if (!patients.containsKey(booking.patientId())) {
+                rejected.put(booking.requestId(), "Patient not found");
+            } else {
+                winners.add(booking);
+            }
+        }
+        if (winners.isEmpty()) {
+            return new BatchOutcome(confirmed, rejected);
+        }
+
+        List<Long> slotIds = winners.stream().map(QueuedBooking::slotId).toList();
+        appointmentSlotRepository.markBooked(slotIds, LocalDateTime.now());
+        Map<Long, AppointmentSlot> slots = new HashMap<>();
+        appointmentSlotRepository.findAllById(slotIds).forEach(slot -> slots.put(slot.getId(), slot));
+
+        List<Appointment> appointments = new ArrayList<>(winners.size());
+        for (QueuedBooking booking : winners) {
+            AppointmentSlot slot = slots.get(booking.slotId());
+            Appointment appointment = new Appointment();
+            appointment.setPatient(patients.get(booking.patientId()));
+            appointment.setDoctor(slot.getDoctor());
+            appointment.setAppointmentSlot(slot);
+            appointment.setAppointmentDateTime(slot.getSlotDateTime());
+            appointment.setPatientNotes(booking.patientNotes());
+            appointment.setStatus(Appointment.AppointmentStatus.CONFIRMED);
+            appointments.add(appointment);
+            confirmed.put(booking.requestId(), appointment);
+        }
+
+        appointmentBulkWriter.insertAppointments(appointments);
+        slots.values().forEach(slotAvailabilityIndex::markBooked);
+        notificationService.scheduleReminders(appointments);
+
+        return new BatchOutcome(confirmed, rejected);
+    }
+
+    private static boolean isHeldByAnother(AppointmentSlot slot, Long patientId) {
+        return slot.isHeldAt(LocalDateTime.now()) && !patientId.equals(slot.getHeldBy());
+    }
+
+    public record QueuedBooking(String requestId, Long patientId, Long slotId, String patientNotes) {}
+
+    // Keyed by request ID; rejected maps to the reason
+    public record BatchOutcome(Map<String, Appointment> confirmed, Map<String, String> rejected) {}
+
     private Appointment bookAppointmentWithRedisLock(Long patientId, Long slotId, String patientNotes) {
+        // Losers of the claim fail here instead of queueing on the lock; the winner's claim settles with this transaction
+        if (!slotClaimGate.claim(slotId)) {
+            throw new RuntimeException("Appointment slot is not available");
+        }
+        return bookUnderRedisLock(patientId, slotId, patientNotes);
+    }
+
+    private Appointment bookUnderRedisLock(Long patientId, Long slotId, String patientNotes) {
         String lockKey = "appointment_slot_" + slotId;
         RLock lock = redissonClient.getLock(lockKey);
 
@@ -67,10 +212,27 @@ public class AppointmentService {
     }
 
     private Appointment bookAppointmentWithoutRedis(Long patientId, Long slotId, String patientNotes) {
-        // For local testing without Redis - use database-level locking
-        synchronized (this) {
-            return performBooking(patientId, slotId, patientNotes);
+        // Without Redis, serialize only bookings that target the same slot stripe
+        return slotLockManager.executeWithSlotLock(slotId,
+                () -> performBooking(patientId, slotId, patientNotes));
+    }
+
+    private Appointment bookAppointmentOptimistic(Long patientId, Long slotId, String patientNotes) {
+        // The conditional UPDATE is the claim: no distributed lock and no row lock round trip
+        if (appointmentSlotRepository.claimSlot(slotId, patientId, LocalDateTime.now()) == 0) {
+            if (!appointmentSlotRepository.existsById(slotId)) {
+                throw new RuntimeException("Appointment slot not found");
+            }
+            throw new RuntimeException("Appointment slot is not available");
         }
+
+        AppointmentSlot slot = appointmentSlotRepository.findById(slotId)
+                .orElseThrow(() -> new RuntimeException("Appointment slot not found"));
+
+        User patient = userRepository.findById(patientId)
+                .orElseThrow(() -> new RuntimeException("Patient not found"));
+
+        return createConfirmedAppointment(patient, slot, patientNotes);
     }
 
     private Appointment performBooking(Long patientId, Long slotId, String patientNotes) {
@@ -78,8 +240,8 @@ public class AppointmentService {
         AppointmentSlot slot = appointmentSlotRepository.findByIdWithLock(slotId)
                 .orElseThrow(() -> new RuntimeException("Appointment slot not found"));
 
-        // Check if slot is available
-        if (slot.getIsBooked() || !slot.getIsAvailable()) {
+        // Check if slot is available (a hold only lets its own patient through)
+        if (slot.getIsBooked() || !slot.getIsAvailable() || isHeldByAnother(slot, patientId)) {
             throw new RuntimeException("Appointment slot is not available");
         }
 
@@ -87,10 +249,16 @@ public class AppointmentService {
         User patient = userRepository.findById(patientId)
                 .orElseThrow(() -> new RuntimeException("Patient not found"));
 
-        // Mark slot as booked
+        // Mark slot as booked; booking consumes any hold
         slot.setIsBooked(true);
+        slot.setHeldBy(null);
+        slot.setHeldUntil(null);
         appointmentSlotRepository.save(slot);
 
+        return createConfirmedAppointment(patient, slot, patientNotes);
+    }
+
+    private Appointment createConfirmedAppointment(User patient, AppointmentSlot slot, String patientNotes) {
         // Create appointment
         Appointment appointment = new Appointment();
         appointment.setPatient(patient);  // Set the fully loaded patient object
@@ -101,6 +269,7 @@ public class AppointmentService {
         appointment.setStatus(Appointment.AppointmentStatus.CONFIRMED);
 
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        slotAvailabilityIndex.markBooked(slot);
 
         // Schedule reminder notification
         notificationService.scheduleReminder(savedAppointment);
@@ -118,18 +287,62 @@ public class AppointmentService {
 
     @Transactional
     public Appointment cancelAppointment(Long appointmentId) {
+        // Conditional UPDATE first: only the first cancel goes on to release the slot
+        if (appointmentRepository.markCancelled(appointmentId, LocalDateTime.now()) == 0) {
+            if (!appointmentRepository.existsById(appointmentId)) {
+                throw new RuntimeException("Appointment not found");
+            }
+            throw new RuntimeException("Appointment is already cancelled");
+        }
+
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
 
-        appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
-
-        // Free up the slot - ensure both flags are set correctly
         AppointmentSlot slot = appointment.getAppointmentSlot();
-        slot.setIsBooked(false);
         slot.setIsAvailable(true);  // Explicitly set to available
-        appointmentSlotRepository.save(slot);
 
-        return appointmentRepository.save(appointment);
+        // A promoted slot stays booked, so its index entry and claim-gate marker are left as they are
+        if (!promoteFromWaitlist(slot, appointment.getPatient().getId())) {
+            // Free up the slot - ensure both flags are set correctly
+            slot.setIsBooked(false);
+            appointmentSlotRepository.save(slot);
+            slotAvailabilityIndex.markAvailable(slot);
+            slotClaimGate.clear(slot.getId());
+        }
+
+        return appointment;
+    }
+
+    // Books the freed slot for the first patient waiting on that doctor/day in the cancelling transaction, so it never
+    // shows up as free in between and nobody has to poll for it; returns whether someone was promoted. Entries whose
+    // patient is gone or already has a confirmed appointment with the doctor that day are closed and skipped.
+    private boolean promoteFromWaitlist(AppointmentSlot slot, Long cancellingPatientId) {
+        if (!waitlistEnabled || !slot.getSlotDateTime().isAfter(LocalDateTime.now())) {
+            return false;
+        }
+
+        Long doctorId = slot.getDoctor().getId();
+        LocalDate day = slot.getSlotDateTime().toLocalDate();
+        while (true) {
+            Optional<WaitlistEntry> next = waitlistService.claimNext(doctorId, day, cancellingPatientId);
+            if (next.isEmpty()) {
+                return false;
+            }
+            WaitlistEntry entry = next.get();
+            Optional<User> patient = userRepository.findById(entry.getPatientId())
+                    .filter(user -> Boolean.TRUE.equals(user.getIsActive()));
+            if (patient.isEmpty() || appointmentRepository.hasConfirmedWithDoctorBetween(
+                    entry.getPatientId(), doctorId, day.atStartOfDay(), day.atTime(23, 59, 59))) {
+                waitlistService.close(entry);
+                continue;
+            }
+
+            appointmentSlotRepository.save(slot);
+            Appointment promoted = createConfirmedAppointment(patient.get(), slot, null);
+            waitlistService.attachAppointment(entry, promoted.getId());
+            notificationService.scheduleWaitlistNotice(promoted);
+            return true;
+        }
     }
 
     public Optional<Appointment> getAppointmentById(Long appointmentId) {
@@ -0,0 +1,130 @@
+package com.appointment.system.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Admission in front of the booking endpoint: a concurrency limit that adapts to booking latency (AIMD), then token
+// buckets per patient and per slot. Anything over the limits is shed straight away with a retry hint, rather than
+// waiting on slot locks while it holds a request thread and a connection.
+@Component
+public class BookingAdmissionControl {
+
+    // startedAt is 0 for requests that were not counted against the concurrency limit
+    public record Permit(boolean admitted, long retryAfterMillis, long startedAt) {}
+
+    private static final Permit UNLIMITED = new Permit(true, 0, 0);
+
+    @Autowired
+    private TokenBucketLimiter tokenBucketLimiter;
+
+    @Value("${app.booking.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.booking.admission.patient.rate-per-second:1}")
+    private double patientRate;
+
+    @Value("${app.booking.admission.patient.burst:5}")
+    private int patientBurst;
+
+    // Only one attempt per slot can win, so a rush on one slot is cut down to a trickle
+    @Value("${app.booking.admission.slot.rate-per-second:5}")
+    private double slotRate;
+
+    @Value("${app.booking.admission.slot.burst:20}")
+    private int slotBurst;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Guarded by this; currentLimit is its published integer value
+    private double limit;
+    private long lastDecreaseAt;
+    private final AtomicInteger currentLimit = new AtomicInteger();
+
+    private final MeterRegistry meterRegistry;
+
+    public BookingAdmissionControl(@Value("${app.booking.admission.concurrency.initial:50}") int initialLimit,
+                                   @Value("${app.booking.admission.concurrency.min:5}") int minLimit,
+                                   @Value("${app.booking.admission.concurrency.max:200}") int maxLimit,
+                                   @Value("${app.booking.admission.concurrency.target-latency-ms:500}") long targetLatencyMs,
+                                   MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.currentLimit.set((int) limit);
+        this.lastDecreaseAt = System.nanoTime() - targetLatencyNanos;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("appointment.booking.admission.limit", currentLimit);
+        meterRegistry.gauge("appointment.booking.admission.in_flight", inFlight);
+    }
+
+    public Permit tryAcquire(Long patientId, Long slotId) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+
+        // Concurrency first: shedding here is free, whereas the buckets may cost a Redis call
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit.get()) {
+                return reject("concurrency", 1000);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        long wait = tokenBucketLimiter.tryTake("patient:" + patientId, patientRate, patientBurst);
+        if (wait == 0) {
+            wait = tokenBucketLimiter.tryTake("slot:" + slotId, slotRate, slotBurst);
+            if (wait > 0) {
+                inFlight.decrementAndGet();
+                return reject("slot", wait);
+            }
+        } else {
+            inFlight.decrementAndGet();
+            return reject("patient", wait);
+        }
+
+        meterRegistry.counter("appointment.booking.admission", "result", "admitted", "reason", "none").increment();
+        return new Permit(true, 0, System.nanoTime());
+    }
+
+    // Call once the admitted booking finished, successfully or not; its latency steers the concurrency limit
+    public void release(Permit permit) {
+        if (!permit.admitted() || permit.startedAt() == 0) {
+            return;
+        }
+        inFlight.decrementAndGet();
+        adjust(System.nanoTime() - permit.startedAt());
+    }
+
+    // Additive increase of about one per limit's worth of fast bookings; multiplicative decrease on a slow one, at most
+    // once per target latency so a burst of slow bookings that were admitted together counts as one signal
+    private synchronized void adjust(long latencyNanos) {
+        long now = System.nanoTime();
+        if (latencyNanos > targetLatencyNanos) {
+            if (now - lastDecreaseAt >= targetLatencyNanos) {
+                limit = Math.max(minLimit, limit * 0.9);
+                lastDecreaseAt = now;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        currentLimit.set((int) limit);
+    }
+
+    private Permit reject(String reason, long retryAfterMillis) {
+        meterRegistry.counter("appointment.booking.admission", "result", "rejected", "reason", reason).increment();
+        return new Permit(false, retryAfterMillis, 0);
+    }
+}
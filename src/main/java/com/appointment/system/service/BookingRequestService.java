@@ -0,0 +1,119 @@
+package com.appointment.system.service;
+
+import com.appointment.system.config.RabbitMQConfig;
+import com.appointment.system.entity.Appointment;
+import com.appointment.system.entity.BookingRequest;
+import com.appointment.system.queue.AppointmentBookingConsumer.BookAppointmentMessage;
+import com.appointment.system.repository.BookingRequestRepository;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+@ConditionalOnProperty(name = "app.rabbitmq.enabled", havingValue = "true", matchIfMissing = false)
+public class BookingRequestService {
+
+    @Autowired
+    private BookingRequestRepository bookingRequestRepository;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Value("${app.booking.partitions:8}")
+    private int partitions;
+
+    @Value("${app.booking.async.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    // Records the request, then publishes it; only returns once the broker has confirmed the message is stored
+    public BookingRequest submit(Long patientId, Long slotId, String patientNotes) {
+        BookingRequest request = bookingRequestRepository.save(
+            new BookingRequest(UUID.randomUUID().toString(), patientId, slotId, patientNotes));
+
+        BookAppointmentMessage message = new BookAppointmentMessage(request.getRequestId(), patientId, slotId, patientNotes);
+        CorrelationData correlation = new CorrelationData(request.getRequestId());
+        int partition = RabbitMQConfig.partitionOf(slotId, partitions);
+        rabbitTemplate.convertAndSend(RabbitMQConfig.APPOINTMENT_BOOKING_PARTITION_EXCHANGE, RabbitMQConfig.partitionRoutingKey(partition),
+            message, m -> {
+                m.getMessageProperties().setMessageId(request.getRequestId());
+                m.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+                return m;
+            }, correlation);
+
+        String error = awaitConfirm(correlation);
+        if (error != null) {
+            fail(request.getRequestId(), error);
+            throw new RuntimeException("Booking request could not be queued: " + error);
+        }
+        return request;
+    }
+
+    public Optional<BookingRequest> getRequest(String requestId) {
+        return bookingRequestRepository.findByRequestId(requestId);
+    }
+
+    public List<BookingRequest> getRequests(Collection<String> requestIds) {
+        return bookingRequestRepository.findByRequestIdIn(requestIds);
+    }
+
+    // Called inside the batch transaction; throws if any request was completed meanwhile so the whole batch rolls back
+    public void recordOutcome(AppointmentService.BatchOutcome outcome) {
+        outcome.confirmed().forEach((requestId, appointment) -> {
+            if (!confirm(requestId, appointment)) {
+                throw new IllegalStateException("Booking request " + requestId + " already completed");
+            }
+        });
+        outcome.rejected().forEach(this::reject);
+    }
+
+    public boolean confirm(String requestId, Appointment appointment) {
+        return bookingRequestRepository.complete(requestId, BookingRequest.RequestStatus.CONFIRMED,
+            appointment.getId(), null, LocalDateTime.now()) > 0;
+    }
+
+    public void reject(String requestId, String reason) {
+        bookingRequestRepository.complete(requestId, BookingRequest.RequestStatus.REJECTED, null, truncate(reason), LocalDateTime.now());
+    }
+
+    public void fail(String requestId, String reason) {
+        bookingRequestRepository.complete(requestId, BookingRequest.RequestStatus.FAILED, null, truncate(reason), LocalDateTime.now());
+    }
+
+    // Returns null when the broker acked and routed the message, otherwise why it did not
+    private String awaitConfirm(CorrelationData correlation) {
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!confirm.isAck()) {
+                return "broker nack: " + confirm.getReason();
+            }
+            if (correlation.getReturned() != null) {
+                return "unroutable: " + correlation.getReturned().getReplyText();
+            }
+            return null;
+        } catch (TimeoutException e) {
+            return "no broker confirm within " + confirmTimeoutMs + " ms";
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted waiting for broker confirm";
+        }
+    }
+
+    private static String truncate(String reason) {
+        return reason == null || reason.length() <= 255 ? reason : reason.substring(0, 255);
+    }
+}
@@ -0,0 +1,149 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.DoctorSchedule;
+import com.appointment.system.entity.SlotGenerationJob;
+import com.appointment.system.entity.User;
+import com.appointment.system.repository.DoctorScheduleRepository;
+import com.appointment.system.repository.SlotGenerationJobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class DoctorOnboardingService {
+
+    @Autowired
+    private SlotGenerationJobRepository slotGenerationJobRepository;
+
+    @Autowired
+    private DoctorScheduleRepository doctorScheduleRepository;
+
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+
+    @Autowired
+    @Qualifier("slotGenerationExecutor")
+    private TaskExecutor slotGenerationExecutor;
+
+    // A running job's lease is renewed every heartbeat; a node that dies stops renewing and its jobs are taken over
+    @Value("${app.onboarding.lease-seconds:120}")
+    private long leaseSeconds;
+
+    // Identifies this node's claims; unique per process unless configured
+    @Value("${app.onboarding.node-id:#{T(java.util.UUID).randomUUID().toString()}}")
+    private String nodeId;
+
+    // Jobs this node is running right now, whose leases the heartbeat renews
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    public SlotGenerationJob enqueueSlotGeneration(User doctor) {
+        SlotGenerationJob job = slotGenerationJobRepository.save(new SlotGenerationJob(doctor));
+        Long jobId = job.getId();
+
+        // The worker must see the committed doctor and schedules, so hand off only after commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(jobId);
+                }
+            });
+        } else {
+            submit(jobId);
+        }
+        return job;
+    }
+
+    public Optional<SlotGenerationJob> getJob(Long jobId) {
+        return slotGenerationJobRepository.findById(jobId);
+    }
+
+    public Optional<SlotGenerationJob> getLatestJobForDoctor(Long doctorId) {
+        return slotGenerationJobRepository.findTopByDoctorIdOrderByCreatedAtDesc(doctorId);
+    }
+
+    // Jobs are durable rows: PENDING ones are picked up again after a restart. RUNNING ones are left to their owner
+    // while its lease is live; the claim only succeeds for those whose lease lapsed.
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<SlotGenerationJob> unfinished = slotGenerationJobRepository.findByStatusIn(
+            List.of(SlotGenerationJob.JobStatus.PENDING, SlotGenerationJob.JobStatus.RUNNING));
+
+        unfinished.forEach(job -> submit(job.getId()));
+
+        if (!unfinished.isEmpty()) {
+            System.out.println("Checking " + unfinished.size() + " unfinished slot generation job(s) for resumption");
+        }
+    }
+
+    // Heartbeat: keeps this node's running jobs leased, and takes over jobs whose owner stopped renewing
+    public void maintainLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!runningJobs.isEmpty()) {
+            slotGenerationJobRepository.renewLeases(runningJobs, nodeId, leaseExpiry(now));
+        }
+        List<Long> expired = slotGenerationJobRepository.findExpiredRunningIds(now);
+        expired.forEach(this::submit);
+        if (!expired.isEmpty()) {
+            System.out.println("Taking over " + expired.size() + " slot generation job(s) with lapsed leases");
+        }
+    }
+
+    private void submit(Long jobId) {
+        slotGenerationExecutor.execute(() -> runJob(jobId));
+    }
+
+    private void runJob(Long jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (slotGenerationJobRepository.claimJob(jobId, nodeId, leaseExpiry(now), now) == 0) {
+            return;
+        }
+        runningJobs.add(jobId);
+
+        SlotGenerationJob.JobStatus status;
+        int created = 0;
+        String error = null;
+        try {
+            SlotGenerationJob job = slotGenerationJobRepository.findById(jobId)
+                    .orElseThrow(() -> new RuntimeException("Slot generation job not found"));
+            User doctor = job.getDoctor();
+            List<DoctorSchedule> schedules = doctorScheduleRepository.findByDoctorIdAndIsActiveTrue(doctor.getId());
+            created = slotGenerationService.generateSlotsForDoctor(doctor, schedules);
+            status = SlotGenerationJob.JobStatus.COMPLETED;
+        } catch (Exception e) {
+            status = SlotGenerationJob.JobStatus.FAILED;
+            error = truncate(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            System.err.println("Slot generation job " + jobId + " failed: " + e.getMessage());
+        } finally {
+            runningJobs.remove(jobId);
+        }
+
+        // Generation skips slots that already exist, so a takeover that overlapped this run did no harm; its owner records the result
+        if (slotGenerationJobRepository.finishJob(jobId, nodeId, status, created, error, LocalDateTime.now()) == 0) {
+            System.err.println("Slot generation job " + jobId + " was taken over by another node before it finished here");
+        }
+    }
+
+    // Millisecond lease, so it compares the same after the round trip on any timestamp precision
+    private LocalDateTime leaseExpiry(LocalDateTime now) {
+        return now.plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    // error_message is VARCHAR(255); a longer message would fail the save and leave the job RUNNING
+    private String truncate(String error) {
+        return error.length() <= 255 ? error : error.substring(0, 255);
+    }
+}
@@ -0,0 +1,169 @@
+package com.appointment.system.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Results of requests sent with an Idempotency-Key, scoped per patient. A replay gets the stored response back without
+// reaching the booking path; a duplicate that arrives while the first attempt is still running is turned away.
+// Only successes are stored: a failed attempt frees the key so the client can retry it.
+@Component
+public class IdempotencyStore {
+
+    private static final String REDIS_KEY_PREFIX = "idempotency:";
+    private static final String PENDING = "P";
+    private static final String DONE = "D";
+
+    public enum State { ACQUIRED, REPLAY, IN_PROGRESS, MISMATCH }
+
+    // body is only set for REPLAY
+    public record Claim(State state, String body) {}
+
+    // Shared across nodes when app.redis.enabled=true; the local map is the single-node store and the Redis fallback
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final long resultTtlMillis;
+
+    // Bounds how long a crashed attempt can block its key
+    private final long pendingTtlMillis;
+
+    private final Map<String, Entry> entries;
+
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyStore(@Value("${app.idempotency.max-size:10000}") int maxSize,
+                            @Value("${app.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${app.idempotency.pending-ttl-seconds:60}") long pendingTtlSeconds,
+                            MeterRegistry meterRegistry) {
+        this.resultTtlMillis = ttlSeconds * 1000;
+        this.pendingTtlMillis = pendingTtlSeconds * 1000;
+        this.meterRegistry = meterRegistry;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        meterRegistry.gaugeMapSize("idempotency.store.size", List.of(), entries);
+    }
+
+    // The fingerprint ties a key to its request body, so reusing a key for a different request is caught
+    public Claim begin(Long patientId, String key, String request) {
+        String id = patientId + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        Claim claim = redisTemplate != null ? beginInRedis(id, fingerprint) : null;
+        if (claim == null) {
+            claim = beginLocally(id, fingerprint);
+        }
+        meterRegistry.counter("idempotency.requests", "result", claim.state().name().toLowerCase()).increment();
+        return claim;
+    }
+
+    public void complete(Long patientId, String key, String request, String body) {
+        String id = patientId + ":" + key;
+        String fingerprint = fingerprint(request);
+        synchronized (this) {
+            entries.put(id, new Entry(fingerprint, body, System.currentTimeMillis() + resultTtlMillis));
+        }
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + id, DONE + "|" + fingerprint + "|" + body,
+                    Duration.ofMillis(resultTtlMillis));
+            } catch (Exception e) {
+                System.err.println("Failed to store idempotent result in Redis: " + e.getMessage());
+            }
+        }
+    }
+
+    public void abandon(Long patientId, String key) {
+        String id = patientId + ":" + key;
+        synchronized (this) {
+            entries.remove(id);
+        }
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.delete(REDIS_KEY_PREFIX + id);
+            } catch (Exception e) {
+                // The pending marker's TTL frees the key instead
+                System.err.println("Failed to release idempotency key in Redis: " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized Claim beginLocally(String id, String fingerprint) {
+        Entry entry = entries.get(id);
+        if (entry != null && entry.expiresAt() >= System.currentTimeMillis()) {
+            return claimFor(entry.fingerprint(), entry.body(), fingerprint);
+        }
+        entries.put(id, new Entry(fingerprint, null, System.currentTimeMillis() + pendingTtlMillis));
+        return new Claim(State.ACQUIRED, null);
+    }
+
+    // Null when Redis is unreachable, in which case the local store decides
+    private Claim beginInRedis(String id, String fingerprint) {
+        synchronized (this) {
+            // Results this node produced or already replayed skip the round trip
+            Entry entry = entries.get(id);
+            if (entry != null && entry.body() != null && entry.expiresAt() >= System.currentTimeMillis()) {
+                return claimFor(entry.fingerprint(), entry.body(), fingerprint);
+            }
+        }
+        try {
+            String key = REDIS_KEY_PREFIX + id;
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(key, PENDING + "|" + fingerprint,
+                Duration.ofMillis(pendingTtlMillis));
+            if (Boolean.TRUE.equals(acquired)) {
+                return new Claim(State.ACQUIRED, null);
+            }
+
+            Object value = redisTemplate.opsForValue().get(key);
+            if (!(value instanceof String stored)) {
+                // Freed between the two calls; the client's next retry will acquire it
+                return new Claim(State.IN_PROGRESS, null);
+            }
+            String[] parts = stored.split("\\|", 3);
+            String body = DONE.equals(parts[0]) && parts.length == 3 ? parts[2] : null;
+            if (body != null) {
+                synchronized (this) {
+                    entries.put(id, new Entry(parts[1], body, System.currentTimeMillis() + resultTtlMillis));
+                }
+            }
+            return claimFor(parts[1], body, fingerprint);
+        } catch (Exception e) {
+            System.err.println("Idempotency store unavailable in Redis, using the local store: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Claim claimFor(String storedFingerprint, String body, String fingerprint) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            return new Claim(State.MISMATCH, null);
+        }
+        return body == null ? new Claim(State.IN_PROGRESS, null) : new Claim(State.REPLAY, body);
+    }
+
+    private static String fingerprint(String request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // body is null while the first attempt is still running
+    private record Entry(String fingerprint, String body, long expiresAt) {}
+}
@@ -0,0 +1,291 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.DataMigration;
+import com.appointment.system.entity.NotificationQueue;
+import com.appointment.system.repository.DataMigrationRepository;
+import com.appointment.system.repository.NotificationQueueRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class NotificationDispatcher {
+
+    private static final String REQUEUE_LEGACY_FAILURES = "requeue-legacy-notification-failures";
+
+    @Autowired
+    private NotificationQueueRepository notificationQueueRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ReminderTimingWheel reminderTimingWheel;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("notificationSenderExecutor")
+    private TaskExecutor notificationSenderExecutor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DataMigrationRepository dataMigrationRepository;
+
+    @Value("${app.notifications.page-size:500}")
+    private int pageSize;
+
+    // Emails per SMTP connection; each sender thread works through one batch at a time
+    @Value("${app.notifications.mail-batch-size:50}")
+    private int mailBatchSize;
+
+    @Value("${app.notifications.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.notifications.retry.base-delay-seconds:30}")
+    private long retryBaseDelaySeconds;
+
+    @Value("${app.notifications.retry.max-delay-seconds:3600}")
+    private long retryMaxDelaySeconds;
+
+    // Identifies this node's claims; unique per process unless configured
+    @Value("${app.notifications.node-id:#{T(java.util.UUID).randomUUID().toString()}}")
+    private String nodeId;
+
+    private final AtomicLong backlogAgeSeconds = new AtomicLong();
+
+    // Last lease handed out, in epoch millis; see nextLease()
+    private final AtomicLong lastLeaseMillis = new AtomicLong();
+
+    private boolean skipLocked;
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("notifications.backlog.age.seconds", backlogAgeSeconds);
+        skipLocked = supportsSkipLocked();
+    }
+
+    // SKIP LOCKED lets nodes claim disjoint pages without waiting on each other. H2 only has it from 2.2, and 2.2 can't open
+    // files written by the 2.1 that Boot manages, so older databases claim through a conditional UPDATE instead.
+    private boolean supportsSkipLocked() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String product = metaData.getDatabaseProductName();
+            int major = metaData.getDatabaseMajorVersion();
+            int minor = metaData.getDatabaseMinorVersion();
+            return product.contains("PostgreSQL") || product.contains("Oracle")
+                || (product.contains("MySQL") && major >= 8)
+                || (product.contains("H2") && (major > 2 || (major == 2 && minor >= 2)));
+        } catch (SQLException e) {
+            System.err.println("Could not detect SKIP LOCKED support, claiming with conditional updates: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // One-time migration: rows that failed before retries existed get their remaining attempts, but only while the
+    // appointment is still confirmed and ahead, so nobody is reminded of a past or cancelled appointment
+    @EventListener(ApplicationReadyEvent.class)
+    public void requeueLegacyFailures() {
+        Integer requeued;
+        try {
+            requeued = transactionTemplate.execute(status -> {
+                if (dataMigrationRepository.existsById(REQUEUE_LEGACY_FAILURES)) {
+                    return null;
+                }
+                LocalDateTime now = LocalDateTime.now();
+                DataMigration migration = new DataMigration(REQUEUE_LEGACY_FAILURES);
+                migration.setAffectedRows(notificationQueueRepository.requeueFailedForRetry(now));
+                dataMigrationRepository.saveAndFlush(migration);
+                return migration.getAffectedRows();
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node applied it at the same time; its transaction won the primary key
+            return;
+        }
+        if (requeued != null) {
+            System.out.println("Requeued " + requeued + " failed notifications with retries left");
+            if (requeued > 0) {
+                reminderTimingWheel.schedule(LocalDateTime.now());
+            }
+        }
+    }
+
+    public void processReminders() {
+        long startedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        LocalDateTime oldestDue = notificationQueueRepository.findOldestPendingScheduledTime(now);
+        backlogAgeSeconds.set(oldestDue == null ? 0 : Duration.between(oldestDue, now).getSeconds());
+
+        int sent = 0;
+        int failed = 0;
+        // Keep claiming until fewer than a full page is left for this node
+        while (true) {
+            List<NotificationQueue> page = claimPage(nodeId, now);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            int pageSent = dispatchPage(page);
+            sent += pageSent;
+            failed += page.size() - pageSent;
+
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        meterRegistry.timer("notifications.dispatch.tick").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("notifications.dispatch", "outcome", "sent").increment(sent);
+        meterRegistry.counter("notifications.dispatch", "outcome", "failed").increment(failed);
+
+        if (sent + failed > 0) {
+            double seconds = Math.max(elapsedNanos / 1_000_000_000.0, 0.001);
+            System.out.println(String.format("Dispatched %d notifications (%d failed) in %.1f s (%.1f/s), oldest was %d s overdue",
+                sent + failed, failed, seconds, (sent + failed) / seconds, backlogAgeSeconds.get()));
+        }
+    }
+
+    // Claims up to a page of due rows in a short transaction, so other nodes skip them instead of double-sending.
+    // Package-private so the concurrency tests can claim as several nodes from one context.
+    List<NotificationQueue> claimPage(String claimant, LocalDateTime now) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            LocalDateTime leaseExpiresAt = nextLease();
+            if (skipLocked) {
+                List<Long> claimable = notificationQueueRepository.findClaimableIdsSkipLocked(now, pageSize);
+                if (!claimable.isEmpty()) {
+                    notificationQueueRepository.claim(claimable, claimant, leaseExpiresAt);
+                }
+                return claimable;
+            }
+
+            List<Long> candidates = notificationQueueRepository.findClaimableIds(now, pageSize);
+            if (candidates.isEmpty()) {
+                return candidates;
+            }
+            notificationQueueRepository.claimIfUnleased(candidates, claimant, leaseExpiresAt, now);
+            return notificationQueueRepository.findClaimedIds(candidates, claimant, leaseExpiresAt);
+        });
+        return ids == null || ids.isEmpty() ? List.of() : notificationQueueRepository.findAllById(ids);
+    }
+
+    // Millisecond lease, so it compares equal after the round trip on any timestamp precision. Strictly increasing per
+    // node: the conditional-update path tells its rows apart by (node, lease), and the wheel and the poller can claim at once.
+    private LocalDateTime nextLease() {
+        long wanted = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(leaseSeconds);
+        long millis = lastLeaseMillis.updateAndGet(last -> Math.max(wanted, last + 1));
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    // Fans the page out to the sender pool in mail batches and writes the outcomes back in bulk; returns the number sent
+    private int dispatchPage(List<NotificationQueue> page) {
+        List<CompletableFuture<List<String>>> batches = new ArrayList<>();
+        for (int from = 0; from < page.size(); from += mailBatchSize) {
+            List<NotificationQueue> batch = page.subList(from, Math.min(from + mailBatchSize, page.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> send(batch), notificationSenderExecutor));
+        }
+        List<String> results = new ArrayList<>(page.size());
+        batches.forEach(batch -> results.addAll(batch.join()));
+
+        List<Long> sentIds = new ArrayList<>();
+        List<NotificationQueue> failures = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < page.size(); i++) {
+            String error = results.get(i);
+            if (error == null) {
+                sentIds.add(page.get(i).getId());
+            } else {
+                failures.add(page.get(i));
+                errors.add(error);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!sentIds.isEmpty()) {
+            notificationQueueRepository.markSent(sentIds, nodeId, now);
+        }
+        if (!failures.isEmpty()) {
+            recordFailures(failures, errors, now);
+        }
+
+        return sentIds.size();
+    }
+
+    // Each failure gets its own backoff, so these are row updates, written together in one transaction
+    private void recordFailures(List<NotificationQueue> failures, List<String> errors, LocalDateTime now) {
+        int[] outcomes = new int[2];
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < failures.size(); i++) {
+                NotificationQueue notification = failures.get(i);
+                int attempt = notification.getRetryCount() == null ? 1 : notification.getRetryCount() + 1;
+                int maxRetries = notification.getMaxRetries() == null ? 0 : notification.getMaxRetries();
+
+                if (attempt > maxRetries) {
+                    notificationQueueRepository.markDeadLettered(notification.getId(), nodeId, errors.get(i), now);
+                    System.err.println("Notification " + notification.getId() + " dead-lettered after " + attempt + " attempts");
+                    outcomes[1]++;
+                } else {
+                    LocalDateTime nextAttemptAt = now.plus(backoff(attempt));
+                    notificationQueueRepository.markForRetry(notification.getId(), nodeId, errors.get(i), nextAttemptAt, now);
+                    reminderTimingWheel.schedule(nextAttemptAt);
+                    outcomes[0]++;
+                }
+            }
+        });
+        meterRegistry.counter("notifications.dispatch", "outcome", "retried").increment(outcomes[0]);
+        meterRegistry.counter("notifications.dispatch", "outcome", "dead_lettered").increment(outcomes[1]);
+    }
+
+    // Exponential backoff with equal jitter: half the delay is fixed, half random, so an outage doesn't retry in lockstep
+    private Duration backoff(int attempt) {
+        long exponential = retryBaseDelaySeconds << Math.min(attempt - 1, 20);
+        long capped = Math.min(Math.max(exponential, 1), retryMaxDelaySeconds);
+        long half = capped / 2;
+        return Duration.ofSeconds(half + ThreadLocalRandom.current().nextLong(capped - half + 1));
+    }
+
+    // One error per notification, null on success; a batch that fails as a whole fails every row in it
+    private List<String> send(List<NotificationQueue> batch) {
+        try {
+            return notificationService.deliverAll(batch).stream().map(this::truncate).toList();
+        } catch (Exception e) {
+            System.err.println("Failed to send batch of " + batch.size() + " notifications: " + e.getMessage());
+            String error = truncate(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            return batch.stream().map(notification -> error).toList();
+        }
+    }
+
+    private String truncate(String error) {
+        return error == null || error.length() <= 255 ? error : error.substring(0, 255);
+    }
+}
@@ -2,15 +2,22 @@ package com.appointment.system.service;
 
 import com.appointment.system.entity.Appointment;
 import com.appointment.system.entity.NotificationQueue;
+import com.appointment.system.repository.AppointmentBulkWriter;
 import com.appointment.system.repository.NotificationQueueRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class NotificationService {
@@ -18,6 +25,15 @@ public class NotificationService {
     @Autowired
     private NotificationQueueRepository notificationQueueRepository;
 
+    @Autowired
+    private AppointmentBulkWriter appointmentBulkWriter;
+
+    @Autowired
+    private ReminderTimingWheel reminderTimingWheel;
+
+    @Autowired
+    private NotificationTemplateRenderer notificationTemplateRenderer;
+
     @Autowired(required = false)
     private JavaMailSender mailSender;
 
@@ -25,6 +41,36 @@ public class NotificationService {
     private int reminderMinutesBefore;
 
     public void scheduleReminder(Appointment appointment) {
+        NotificationQueue notification = buildReminder(appointment);
+        notificationQueueRepository.save(notification);
+        reminderTimingWheel.schedule(notification.getScheduledTime());
+    }
+
+    // Sent right away: the patient was booked off the waitlist and needs to know before the reminder
+    public void scheduleWaitlistNotice(Appointment appointment) {
+        NotificationQueue notification = new NotificationQueue(
+            appointment,
+            NotificationQueue.NotificationType.EMAIL,
+            appointment.getPatient().getEmail(),
+            LocalDateTime.now()
+        );
+        notification.setTemplateId(NotificationTemplateRenderer.WAITLIST_PROMOTED);
+        notification.setTemplateParams(notificationTemplateRenderer.encodeParams(reminderParams(appointment)));
+        if (appointment.getPatient().getPhoneNumber() != null) {
+            notification.setRecipientPhone(appointment.getPatient().getPhoneNumber());
+        }
+        notificationQueueRepository.save(notification);
+        reminderTimingWheel.schedule(notification.getScheduledTime());
+    }
+
+    // Batched bookings: one JDBC batch for all reminders
+    public void scheduleReminders(List<Appointment> appointments) {
+        List<NotificationQueue> notifications = appointments.stream().map(this::buildReminder).toList();
+        appointmentBulkWriter.insertNotifications(notifications);
+        notifications.stream().map(NotificationQueue::getScheduledTime).distinct().forEach(reminderTimingWheel::schedule);
+    }
+
+    private NotificationQueue buildReminder(Appointment appointment) {
         LocalDateTime reminderTime = appointment.getAppointmentDateTime().minusMinutes(reminderMinutesBefore);
 
         NotificationQueue notification = new NotificationQueue(
@@ -34,39 +80,71 @@ public class NotificationService {
             reminderTime
         );
 
-        String messageContent = buildReminderMessage(appointment);
-        notification.setMessageContent(messageContent);
+        notification.setTemplateId(NotificationTemplateRenderer.APPOINTMENT_REMINDER);
+        notification.setTemplateParams(notificationTemplateRenderer.encodeParams(reminderParams(appointment)));
 
         if (appointment.getPatient().getPhoneNumber() != null) {
             notification.setRecipientPhone(appointment.getPatient().getPhoneNumber());
         }
+        return notification;
+    }
 
-        notificationQueueRepository.save(notification);
+    // Sends a single notification; throws if delivery fails so the dispatcher can record it
+    public void deliver(NotificationQueue notification) {
+        switch (notification.getNotificationType()) {
+            case EMAIL:
+                sendEmailNotification(notification);
+                break;
+            case SMS:
+                sendSmsNotification(notification);
+                break;
+        }
     }
 
-    public void processReminders() {
-        LocalDateTime now = LocalDateTime.now();
-        List<NotificationQueue> pendingNotifications = notificationQueueRepository.findPendingNotifications(now);
+    // Sends a batch, with all emails over one SMTP connection; returns one error per notification, null when sent
+    public List<String> deliverAll(List<NotificationQueue> notifications) {
+        List<String> errors = new ArrayList<>(Collections.nCopies(notifications.size(), null));
+        Map<SimpleMailMessage, Integer> emails = new IdentityHashMap<>();
 
-        for (NotificationQueue notification : pendingNotifications) {
+        for (int i = 0; i < notifications.size(); i++) {
+            NotificationQueue notification = notifications.get(i);
+            if (notification.getNotificationType() == NotificationQueue.NotificationType.EMAIL) {
+                emails.put(buildEmail(notification), i);
+                continue;
+            }
             try {
-                switch (notification.getNotificationType()) {
-                    case EMAIL:
-                        sendEmailNotification(notification);
-                        break;
-                    case SMS:
-                        sendSmsNotification(notification);
-                        break;
-                }
-                notification.setStatus(NotificationQueue.NotificationStatus.SENT);
-                notification.setSentAt(LocalDateTime.now()); // Fixed: changed from setSentTime to setSentAt
+                deliver(notification);
             } catch (Exception e) {
-                notification.setStatus(NotificationQueue.NotificationStatus.FAILED);
-                // Log error but continue processing other notifications
-                System.err.println("Failed to send notification: " + e.getMessage());
+                errors.set(i, errorOf(e));
+            }
+        }
+
+        if (emails.isEmpty()) {
+            return errors;
+        }
+        if (mailSender == null) {
+            System.out.println("Email service not configured - skipping " + emails.size() + " email notifications");
+            return errors;
+        }
+
+        try {
+            mailSender.send(emails.keySet().toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            // Only the messages the relay rejected failed; an empty map means the connection itself failed
+            if (e.getFailedMessages().isEmpty()) {
+                emails.values().forEach(i -> errors.set(i, errorOf(e)));
+            } else {
+                e.getFailedMessages().forEach((message, cause) -> {
+                    Integer i = emails.get(message);
+                    if (i != null) {
+                        errors.set(i, errorOf(cause));
+                    }
+                });
             }
-            notificationQueueRepository.save(notification);
+        } catch (MailException e) {
+            emails.values().forEach(i -> errors.set(i, errorOf(e)));
         }
+        return errors;
     }
 
     private void sendEmailNotification(NotificationQueue notification) {
@@ -75,26 +153,48 @@ public class NotificationService {
             return;
         }
 
+        SimpleMailMessage message = buildEmail(notification);
+        mailSender.send(message);
+    }
+
+    private SimpleMailMessage buildEmail(NotificationQueue notification) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setTo(notification.getRecipientEmail());
-        message.setSubject("Appointment Reminder");
-        message.setText(notification.getMessageContent());
+        if (notification.getTemplateId() == null) {
+            message.setSubject("Appointment Reminder");
+            message.setText(notification.getMessageContent());
+            return message;
+        }
 
-        mailSender.send(message);
+        Map<String, String> params = notificationTemplateRenderer.decodeParams(notification.getTemplateParams());
+        message.setSubject(notificationTemplateRenderer.subject(notification.getTemplateId(), notification.getLocale(), params));
+        message.setText(notificationTemplateRenderer.body(notification.getTemplateId(), notification.getLocale(), params));
+        return message;
+    }
+
+    private String messageBody(NotificationQueue notification) {
+        if (notification.getTemplateId() == null) {
+            return notification.getMessageContent();
+        }
+        Map<String, String> params = notificationTemplateRenderer.decodeParams(notification.getTemplateParams());
+        return notificationTemplateRenderer.body(notification.getTemplateId(), notification.getLocale(), params);
+    }
+
+    private static String errorOf(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
     }
 
     private void sendSmsNotification(NotificationQueue notification) {
         // SMS functionality can be implemented later
         System.out.println("SMS notification would be sent to: " + notification.getRecipientPhone());
-        System.out.println("Message: " + notification.getMessageContent());
+        System.out.println("Message: " + messageBody(notification));
     }
 
-    private String buildReminderMessage(Appointment appointment) {
-        return String.format(
-            "Dear %s,\n\nThis is a reminder that you have an appointment scheduled with Dr. %s on %s.\n\nPlease arrive 15 minutes early.\n\nThank you!",
-            appointment.getPatient().getFirstName(),
-            appointment.getDoctor().getFirstName() + " " + appointment.getDoctor().getLastName(),
-            appointment.getAppointmentDateTime().toString()
+    private Map<String, String> reminderParams(Appointment appointment) {
+        return Map.of(
+            "patientFirstName", appointment.getPatient().getFirstName(),
+            "doctorName", appointment.getDoctor().getFirstName() + " " + appointment.getDoctor().getLastName(),
+            "appointmentDateTime", appointment.getAppointmentDateTime().toString()
         );
     }
 }
@@ -0,0 +1,99 @@
+package com.appointment.system.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Renders notification text at send time from a template ID and a small parameter map stored on the row
+@Component
+public class NotificationTemplateRenderer {
+
+    public static final String APPOINTMENT_REMINDER = "appointment-reminder";
+    public static final String WAITLIST_PROMOTED = "waitlist-promoted";
+
+    private static final String BUNDLE = "notification-templates";
+
+    private static final TypeReference<Map<String, String>> PARAMS_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<TemplateKey, CompiledTemplate> templates = new ConcurrentHashMap<>();
+
+    @Value("${app.notifications.default-locale:en}")
+    private String defaultLocale;
+
+    public String subject(String templateId, String locale, Map<String, String> params) {
+        return template(templateId + ".subject", locale).render(params);
+    }
+
+    public String body(String templateId, String locale, Map<String, String> params) {
+        return template(templateId + ".body", locale).render(params);
+    }
+
+    public String encodeParams(Map<String, String> params) {
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot encode notification parameters", e);
+        }
+    }
+
+    public Map<String, String> decodeParams(String params) {
+        if (params == null || params.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(params, PARAMS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot decode notification parameters", e);
+        }
+    }
+
+    private CompiledTemplate template(String key, String locale) {
+        String tag = locale != null ? locale : defaultLocale;
+        return templates.computeIfAbsent(new TemplateKey(key, tag), k -> {
+            ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE, Locale.forLanguageTag(k.locale()),
+                ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES));
+            return CompiledTemplate.compile(bundle.getString(k.key()));
+        });
+    }
+
+    private record TemplateKey(String key, String locale) {}
+
+    // Literal text and parameter names, alternating: even entries are literals, odd entries are names
+    private record CompiledTemplate(List<String> parts) {
+
+        static CompiledTemplate compile(String source) {
+            List<String> parts = new ArrayList<>();
+            int from = 0;
+            while (true) {
+                int open = source.indexOf('{', from);
+                int close = open < 0 ? -1 : source.indexOf('}', open);
+                if (close < 0) {
+                    parts.add(source.substring(from));
+                    return new CompiledTemplate(parts);
+                }
+                parts.add(source.substring(from, open));
+                parts.add(source.substring(open + 1, close));
+                from = close + 1;
+            }
+        }
+
+        String render(Map<String, String> params) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < parts.size(); i++) {
+                text.append(i % 2 == 0 ? parts.get(i) : params.getOrDefault(parts.get(i), ""));
+            }
+            return text.toString();
+        }
+    }
+}
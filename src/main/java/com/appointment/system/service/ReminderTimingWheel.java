@@ -0,0 +1,190 @@
+package com.appointment.system.service;
+
+import com.appointment.system.repository.NotificationQueueRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hashed timing wheel of one-second ticks. It only remembers the seconds at which something becomes due;
+// when one passes, the dispatcher claims whatever is due from notification_queue, which stays the source of truth.
+@Component
+public class ReminderTimingWheel {
+
+    @Autowired
+    private NotificationQueueRepository notificationQueueRepository;
+
+    // Lazy: the dispatcher feeds retries back into the wheel
+    @Autowired
+    @Lazy
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.notifications.timing-wheel.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.notifications.timing-wheel.size:512}")
+    private int wheelSize;
+
+    // How far ahead each refill loads due times from the database
+    @Value("${app.notifications.timing-wheel.horizon-minutes:15}")
+    private long horizonMinutes;
+
+    private final List<Set<Long>> buckets = new ArrayList<>();
+
+    private final AtomicInteger armed = new AtomicInteger();
+
+    private final Object lock = new Object();
+
+    private long lastTick;
+
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashSet<>());
+        }
+        lastTick = currentTick();
+        meterRegistry.gauge("notifications.wheel.armed", armed);
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) {
+            System.out.println("Reminder wheel loaded " + refill() + " due times");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Arms the wheel for everything pending up to the horizon; overdue rows (expired leases, other nodes' rows) fire on the next tick
+    public int refill() {
+        if (!enabled) {
+            return 0;
+        }
+        List<LocalDateTime> dueTimes = notificationQueueRepository.findPendingDueTimesUntil(LocalDateTime.now().plusMinutes(horizonMinutes));
+        dueTimes.forEach(this::arm);
+        return dueTimes.size();
+    }
+
+    // Arms the wheel once the row that becomes due at this time is committed
+    public void schedule(LocalDateTime dueTime) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    arm(dueTime);
+                }
+            });
+        } else {
+            arm(dueTime);
+        }
+    }
+
+    private void arm(LocalDateTime dueTime) {
+        // Round up: the claim query only sees rows whose time has fully passed
+        long tick = dueTime.atZone(ZoneId.systemDefault()).toEpochSecond() + (dueTime.getNano() > 0 ? 1 : 0);
+        synchronized (lock) {
+            long deadline = Math.max(tick, lastTick + 1);
+            if (buckets.get(bucketOf(deadline)).add(deadline)) {
+                armed.incrementAndGet();
+            }
+        }
+    }
+
+    private void tick() {
+        try {
+            if (advance()) {
+                notificationDispatcher.processReminders();
+            }
+        } catch (Exception e) {
+            System.err.println("Error firing reminder wheel: " + e.getMessage());
+        }
+    }
+
+    // Drains the buckets for every second since the last tick; returns whether anything came due
+    private boolean advance() {
+        long now = currentTick();
+        boolean due = false;
+        synchronized (lock) {
+            if (now - lastTick >= wheelSize) {
+                // Stalled for a full revolution (e.g. a long dispatch), so every bucket may hold something due
+                for (Set<Long> bucket : buckets) {
+                    due |= drain(bucket, now);
+                }
+            } else {
+                for (long tick = lastTick + 1; tick <= now; tick++) {
+                    due |= drain(buckets.get(bucketOf(tick)), now);
+                }
+            }
+            lastTick = Math.max(lastTick, now);
+        }
+        return due;
+    }
+
+    // Entries for later revolutions share the bucket and are left in place
+    private boolean drain(Set<Long> bucket, long now) {
+        boolean due = false;
+        for (Iterator<Long> it = bucket.iterator(); it.hasNext(); ) {
+            if (it.next() <= now) {
+                it.remove();
+                armed.decrementAndGet();
+                due = true;
+            }
+        }
+        return due;
+    }
+
+    private int bucketOf(long tick) {
+        return (int) Math.floorMod(tick, (long) wheelSize);
+    }
+
+    private static long currentTick() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
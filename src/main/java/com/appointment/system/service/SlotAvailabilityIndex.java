@@ -0,0 +1,200 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.AppointmentSlot;
+import com.appointment.system.repository.AppointmentSlotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class SlotAvailabilityIndex {
+
+    // Slots are indexed on a fixed 30-minute grid, so one day fits in a single long
+    private static final int GRID_MINUTES = 30;
+    private static final int SLOTS_PER_DAY = 24 * 60 / GRID_MINUTES;
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    // With Redis enabled every node reads and writes the shared tier; the local bitmap is the single-node fallback
+    @Autowired
+    private SlotAvailabilityRedisStore redisStore;
+
+    @Value("${app.slots.availability-index.enabled:true}")
+    private boolean enabled;
+
+    private final Map<DoctorDay, DayEntry> days = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled || redisStore.isActive()) {
+            return;
+        }
+
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        List<AppointmentSlot> slots = appointmentSlotRepository.findAllSlotsFromDate(from);
+
+        days.clear();
+        slots.forEach(this::index);
+        ready = true;
+
+        System.out.println("Availability index rebuilt with " + slots.size() + " slots across " +
+                          days.size() + " doctor-days");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns empty when the index cannot answer the range and the caller must query the database
+    public Optional<List<AppointmentSlot>> findAvailableSlots(Long doctorId, LocalDate startDate, LocalDate endDate) {
+        if (enabled && redisStore.isActive()) {
+            return startDate.isBefore(LocalDate.now()) ? Optional.empty() : redisStore.findAvailableSlots(doctorId, startDate, endDate);
+        }
+        if (!ready || startDate.isBefore(LocalDate.now())) {
+            return Optional.empty();
+        }
+
+        List<AppointmentSlot> result = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            DayEntry entry = days.get(new DoctorDay(doctorId, date));
+            if (entry == null) {
+                continue;
+            }
+            if (!entry.collectAvailable(result)) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(result);
+    }
+
+    public void addSlots(Collection<AppointmentSlot> slots) {
+        publish(slots, () -> slots.forEach(this::index));
+    }
+
+    public void markBooked(AppointmentSlot slot) {
+        publish(List.of(slot), () -> setAvailable(slot, false));
+    }
+
+    // A held slot drops out of listings like a booked one until the hold is confirmed, released or lapses
+    public void markHeld(AppointmentSlot slot) {
+        markBooked(slot);
+    }
+
+    public void markAvailable(AppointmentSlot slot) {
+        publish(List.of(slot), () -> setAvailable(slot, true));
+    }
+
+    // The Redis store defers its own write until commit; the local bitmap is updated through afterCommit here
+    private void publish(Collection<AppointmentSlot> slots, Runnable localUpdate) {
+        if (!enabled) {
+            return;
+        }
+        if (redisStore.isActive()) {
+            redisStore.put(slots);
+        } else {
+            afterCommit(localUpdate);
+        }
+    }
+
+    private void index(AppointmentSlot slot) {
+        DayEntry entry = days.computeIfAbsent(keyOf(slot), key -> new DayEntry());
+        entry.put(slot, !slot.getIsBooked() && slot.getIsAvailable() && !slot.isHeldAt(LocalDateTime.now()));
+    }
+
+    private void setAvailable(AppointmentSlot slot, boolean available) {
+        DayEntry entry = days.get(keyOf(slot));
+        if (entry != null) {
+            entry.setAvailable(slot, available);
+        }
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!enabled) {
+            return;
+        }
+        // Only publish changes once the database agrees with them
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private static DoctorDay keyOf(AppointmentSlot slot) {
+        return new DoctorDay(slot.getDoctor().getId(), slot.getSlotDateTime().toLocalDate());
+    }
+
+    private static int gridPosition(LocalTime time) {
+        if (time.getSecond() != 0 || time.getNano() != 0 || time.getMinute() % GRID_MINUTES != 0) {
+            return -1;
+        }
+        return (time.getHour() * 60 + time.getMinute()) / GRID_MINUTES;
+    }
+
+    private record DoctorDay(Long doctorId, LocalDate date) {}
+
+    private static class DayEntry {
+
+        private final AppointmentSlot[] slots = new AppointmentSlot[SLOTS_PER_DAY];
+
+        private long availableBits = 0L;
+
+        // Set when a slot falls off the grid; such days are always served from the database
+        private boolean offGrid = false;
+
+        synchronized void put(AppointmentSlot slot, boolean available) {
+            int position = gridPosition(slot.getSlotDateTime().toLocalTime());
+            if (position < 0) {
+                offGrid = true;
+                return;
+            }
+            slots[position] = slot;
+            availableBits = available ? availableBits | (1L << position) : availableBits & ~(1L << position);
+        }
+
+        synchronized void setAvailable(AppointmentSlot slot, boolean available) {
+            int position = gridPosition(slot.getSlotDateTime().toLocalTime());
+            if (position < 0 || slots[position] == null) {
+                return;
+            }
+            // Keep the latest copy so cached responses carry the current flags
+            slots[position] = slot;
+            availableBits = available ? availableBits | (1L << position) : availableBits & ~(1L << position);
+        }
+
+        synchronized boolean collectAvailable(List<AppointmentSlot> result) {
+            if (offGrid) {
+                return false;
+            }
+            long bits = availableBits;
+            while (bits != 0) {
+                int position = Long.numberOfTrailingZeros(bits);
+                result.add(slots[position]);
+                bits &= bits - 1;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.AppointmentSlot;
+import com.appointment.system.entity.User;
+import com.appointment.system.repository.AppointmentSlotRepository;
+import com.appointment.system.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Shared tier of the availability index: one Redis hash per doctor/day, slotId -> "time|booked|available|created|updated|heldUntil",
+// plus the doctor's public fields so a fully cached read never touches SQL. A day only counts as cached once its LOADED marker
+// is set. Write-throughs always win over a read-through snapshot: the snapshot only fills fields that are still missing.
+@Component
+public class SlotAvailabilityRedisStore {
+
+    // v2: plain string values; v1 hashes held JSON-serialized values and simply age out
+    private static final String KEY_PREFIX = "slots:v2:day:";
+    private static final String LOADED = "_loaded";
+    private static final String DOCTOR = "_doctor";
+
+    // KEYS: day hashes; ARGV: ttl ms, then per key a field count followed by that many field/value pairs.
+    // Write-through: overwrite the fields, and give hashes of days nobody has read yet a TTL so they can't pile up.
+    private static final RedisScript<Long> WRITE_THROUGH = new DefaultRedisScript<>(
+        "local i = 2 " +
+        "for k = 1, #KEYS do " +
+        "  local n = tonumber(ARGV[i]) i = i + 1 " +
+        "  for j = 1, n do redis.call('HSET', KEYS[k], ARGV[i], ARGV[i + 1]) i = i + 2 end " +
+        "  if redis.call('PTTL', KEYS[k]) < 0 then redis.call('PEXPIRE', KEYS[k], ARGV[1]) end " +
+        "end " +
+        "return #KEYS",
+        Long.class);
+
+    // Read-through fill with the same layout: HSETNX keeps any write-through that landed after the SQL read, then the
+    // day is marked loaded and its TTL restarted
+    private static final RedisScript<Long> FILL = new DefaultRedisScript<>(
+        "local i = 2 " +
+        "for k = 1, #KEYS do " +
+        "  local n = tonumber(ARGV[i]) i = i + 1 " +
+        "  for j = 1, n do redis.call('HSETNX', KEYS[k], ARGV[i], ARGV[i + 1]) i = i + 2 end " +
+        "  redis.call('PEXPIRE', KEYS[k], ARGV[1]) " +
+        "end " +
+        "return #KEYS",
+        Long.class);
+
+    private static final TypeReference<Map<String, String>> DOCTOR_TYPE = new TypeReference<>() {};
+
+    // Only present when app.redis.enabled=true
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.slots.availability-cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Values here are plain strings, so the scripts and the reads agree on the encoding
+    private StringRedisTemplate stringTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (redisTemplate != null) {
+            stringTemplate = new StringRedisTemplate(redisTemplate.getConnectionFactory());
+            stringTemplate.afterPropertiesSet();
+        }
+    }
+
+    public boolean isActive() {
+        return redisTemplate != null;
+    }
+
+    // Empty when Redis cannot answer, in which case the caller reads the database
+    public Optional<List<AppointmentSlot>> findAvailableSlots(Long doctorId, LocalDate startDate, LocalDate endDate) {
+        try {
+            List<LocalDate> dates = new ArrayList<>();
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                dates.add(date);
+            }
+            List<Object> days = stringTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    dates.forEach(date -> operations.opsForHash().entries(key(doctorId, date)));
+                    return null;
+                }
+            });
+
+            Map<Long, String> cached = new HashMap<>();
+            String doctorSnapshot = null;
+            LocalDate firstMissing = null;
+            LocalDate lastMissing = null;
+            for (int i = 0; i < dates.size(); i++) {
+                Map<?, ?> day = (Map<?, ?>) days.get(i);
+                if (day == null || !day.containsKey(LOADED)) {
+                    firstMissing = firstMissing == null ? dates.get(i) : firstMissing;
+                    lastMissing = dates.get(i);
+                    continue;
+                }
+                if (doctorSnapshot == null) {
+                    doctorSnapshot = (String) day.get(DOCTOR);
+                }
+                day.forEach((field, value) -> {
+                    if (!LOADED.equals(field) && !DOCTOR.equals(field)) {
+                        cached.put(Long.valueOf((String) field), (String) value);
+                    }
+                });
+            }
+
+            // Holds lapse on their own, so they are filtered at read time rather than waiting for a write-through
+            LocalDateTime now = LocalDateTime.now();
+            List<AppointmentSlot> result = new ArrayList<>();
+            User doctor = doctorSnapshot != null ? decodeDoctor(doctorSnapshot) : null;
+            if (firstMissing != null) {
+                // Read through: one range query covering the uncached days, then publish them for every node
+                List<AppointmentSlot> loaded = appointmentSlotRepository.findAllSlotsByDoctorAndDateRange(
+                    doctorId, firstMissing.atStartOfDay(), lastMissing.atTime(23, 59, 59));
+                if (doctor == null) {
+                    doctor = loaded.isEmpty() ? userRepository.findById(doctorId).orElse(null) : loaded.get(0).getDoctor();
+                }
+                if (doctor != null) {
+                    fillDays(doctor, firstMissing, lastMissing, loaded);
+                }
+                loaded.stream()
+                    .filter(slot -> !slot.getIsBooked() && slot.getIsAvailable() && !slot.isHeldAt(now))
+                    .forEach(result::add);
+            }
+
+            if (!cached.isEmpty()) {
+                if (doctor == null) {
+                    doctor = userRepository.findById(doctorId).orElse(null);
+                }
+                if (doctor == null) {
+                    return Optional.empty();
+                }
+                for (Map.Entry<Long, String> entry : cached.entrySet()) {
+                    AppointmentSlot slot = decode(entry.getKey(), doctor, entry.getValue());
+                    if (!slot.getIsBooked() && slot.getIsAvailable() && !slot.isHeldAt(now)) {
+                        result.add(slot);
+                    }
+                }
+            }
+
+            result.sort(Comparator.comparing(AppointmentSlot::getSlotDateTime));
+            return Optional.of(result);
+        } catch (Exception e) {
+            System.err.println("Failed to read slot availability from Redis: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // Write-through for booked/cancelled/generated slots; runs once the surrounding transaction commits, and never on rollback.
+    // The slots are encoded at that point, so several updates to one slot in a transaction publish its final state.
+    public void put(Collection<AppointmentSlot> slots) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write(slots);
+                }
+            });
+        } else {
+            write(slots);
+        }
+    }
+
+    private void write(Collection<AppointmentSlot> slots) {
+        try {
+            Map<String, Map<String, String>> byKey = new LinkedHashMap<>();
+            for (AppointmentSlot slot : slots) {
+                byKey.computeIfAbsent(key(slot.getDoctor().getId(), slot.getSlotDateTime().toLocalDate()), k -> new LinkedHashMap<>())
+                     .put(slot.getId().toString(), encode(slot));
+            }
+            run(WRITE_THROUGH, byKey);
+        } catch (Exception e) {
+            // Stale entries would be served to other nodes, so drop the affected days instead
+            System.err.println("Failed to update slot availability in Redis: " + e.getMessage());
+            evict(slots);
+        }
+    }
+
+    private void fillDays(User doctor, LocalDate from, LocalDate to, List<AppointmentSlot> slots) throws Exception {
+        String doctorSnapshot = encodeDoctor(doctor);
+        Map<String, Map<String, String>> byKey = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            byKey.put(key(doctor.getId(), date), new LinkedHashMap<>());
+        }
+        for (AppointmentSlot slot : slots) {
+            byKey.get(key(doctor.getId(), slot.getSlotDateTime().toLocalDate())).put(slot.getId().toString(), encode(slot));
+        }
+        // Marker fields last, so a day is never marked loaded before its slots are in
+        byKey.values().forEach(fields -> {
+            fields.put(DOCTOR, doctorSnapshot);
+            fields.put(LOADED, "1");
+        });
+        run(FILL, byKey);
+    }
+
+    private void run(RedisScript<Long> script, Map<String, Map<String, String>> byKey) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttlSeconds * 1000));
+        byKey.values().forEach(fields -> {
+            args.add(String.valueOf(fields.size()));
+            fields.forEach((field, value) -> {
+                args.add(field);
+                args.add(value);
+            });
+        });
+        stringTemplate.execute(script, new ArrayList<>(byKey.keySet()), args.toArray());
+    }
+
+    private void evict(Collection<AppointmentSlot> slots) {
+        try {
+            stringTemplate.delete(slots.stream()
+                .map(slot -> key(slot.getDoctor().getId(), slot.getSlotDateTime().toLocalDate()))
+                .distinct()
+                .toList());
+        } catch (Exception e) {
+            System.err.println("Failed to evict slot availability from Redis: " + e.getMessage());
+        }
+    }
+
+    private static String key(Long doctorId, LocalDate date) {
+        return KEY_PREFIX + doctorId + ":" + date;
+    }
+
+    private static String encode(AppointmentSlot slot) {
+        return slot.getSlotDateTime() + "|" + (slot.getIsBooked() ? 1 : 0) + "|" + (slot.getIsAvailable() ? 1 : 0) + "|" +
+               (slot.getCreatedAt() != null ? slot.getCreatedAt() : "") + "|" + (slot.getUpdatedAt() != null ? slot.getUpdatedAt() : "") + "|" +
+               (slot.getHeldUntil() != null ? slot.getHeldUntil() : "");
+    }
+
+    private static AppointmentSlot decode(Long id, User doctor, String value) {
+        String[] parts = value.split("\\|", -1);
+        AppointmentSlot slot = new AppointmentSlot(doctor, LocalDateTime.parse(parts[0]));
+        slot.setId(id);
+        slot.setIsBooked("1".equals(parts[1]));
+        slot.setIsAvailable("1".equals(parts[2]));
+        slot.setCreatedAt(parts[3].isEmpty() ? null : LocalDateTime.parse(parts[3]));
+        slot.setUpdatedAt(parts[4].isEmpty() ? null : LocalDateTime.parse(parts[4]));
+        slot.setHeldUntil(parts[5].isEmpty() ? null : LocalDateTime.parse(parts[5]));
+        return slot;
+    }
+
+    // Only the fields a slot listing shows for its doctor; never the password
+    private String encodeDoctor(User doctor) throws Exception {
+        Map<String, String> snapshot = new HashMap<>();
+        snapshot.put("id", doctor.getId().toString());
+        snapshot.put("firstName", doctor.getFirstName());
+        snapshot.put("lastName", doctor.getLastName());
+        snapshot.put("email", doctor.getEmail());
+        snapshot.put("phoneNumber", doctor.getPhoneNumber());
+        snapshot.put("role", doctor.getRole().name());
+        snapshot.put("isActive", String.valueOf(doctor.getIsActive()));
+        snapshot.put("specialization", doctor.getSpecialization());
+        snapshot.put("licenseNumber", doctor.getLicenseNumber());
+        snapshot.put("createdAt", doctor.getCreatedAt() != null ? doctor.getCreatedAt().toString() : null);
+        snapshot.put("updatedAt", doctor.getUpdatedAt() != null ? doctor.getUpdatedAt().toString() : null);
+        return objectMapper.writeValueAsString(snapshot);
+    }
+
+    private User decodeDoctor(String value) throws Exception {
+        Map<String, String> snapshot = objectMapper.readValue(value, DOCTOR_TYPE);
+        User doctor = new User();
+        doctor.setId(Long.valueOf(snapshot.get("id")));
+        doctor.setFirstName(snapshot.get("firstName"));
+        doctor.setLastName(snapshot.get("lastName"));
+        doctor.setEmail(snapshot.get("email"));
+        doctor.setPhoneNumber(snapshot.get("phoneNumber"));
+        doctor.setRole(User.Role.valueOf(snapshot.get("role")));
+        doctor.setIsActive(Boolean.valueOf(snapshot.get("isActive")));
+        doctor.setSpecialization(snapshot.get("specialization"));
+        doctor.setLicenseNumber(snapshot.get("licenseNumber"));
+        doctor.setCreatedAt(snapshot.get("createdAt") != null ? LocalDateTime.parse(snapshot.get("createdAt")) : null);
+        doctor.setUpdatedAt(snapshot.get("updatedAt") != null ? LocalDateTime.parse(snapshot.get("updatedAt")) : null);
+        return doctor;
+    }
+}
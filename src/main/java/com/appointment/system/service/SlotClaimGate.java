@@ -0,0 +1,133 @@
+package com.appointment.system.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+// Redis pre-claim in front of the booking transaction: one atomic SET NX per slot picks a single winner, so
+// concurrent requests for a taken slot fail in one round trip instead of queueing on the slot lock
+@Component
+public class SlotClaimGate {
+
+    private static final String KEY_PREFIX = "slot:claim:";
+    private static final String BOOKED = "BOOKED";
+
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>(
+        "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 else return 0 end", Long.class);
+
+    // Both only touch the claim while it still carries this request's token
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end", Long.class);
+
+    private static final RedisScript<Long> CONFIRM = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 else return 0 end",
+        Long.class);
+
+    // Only present when app.redis.enabled=true
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${app.booking.claim-gate.enabled:true}")
+    private boolean enabled;
+
+    // Must outlast a normal booking transaction; if it lapses, the database row lock still guards the slot
+    @Value("${app.booking.claim-gate.claim-ttl-ms:5000}")
+    private long claimTtlMs;
+
+    // After a commit the claim stays as a "booked" marker, so later requests fail fast until a cancel clears it
+    @Value("${app.booking.claim-gate.booked-ttl-seconds:600}")
+    private long bookedTtlSeconds;
+
+    private final Counter won;
+    private final Counter lost;
+
+    public SlotClaimGate(MeterRegistry meterRegistry) {
+        this.won = meterRegistry.counter("appointment.booking.claim", "result", "won");
+        this.lost = meterRegistry.counter("appointment.booking.claim", "result", "lost");
+    }
+
+    // Returns false if another request holds or has booked the slot. On a win the claim is confirmed or released when the
+    // surrounding transaction completes. If Redis is unreachable the request goes through to the lock path.
+    public boolean claim(Long slotId) {
+        if (!enabled || redisTemplate == null) {
+            return true;
+        }
+
+        String key = KEY_PREFIX + slotId;
+        String token = UUID.randomUUID().toString();
+        try {
+            if (execute(CLAIM, key, token, String.valueOf(claimTtlMs)) == 0) {
+                lost.increment();
+                return false;
+            }
+        } catch (Exception e) {
+            System.err.println("Slot claim gate unavailable, falling back to the slot lock: " + e.getMessage());
+            return true;
+        }
+        won.increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        run(CONFIRM, key, token, BOOKED, String.valueOf(bookedTtlSeconds * 1000));
+                    } else {
+                        run(RELEASE, key, token);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    // Cancellation frees the slot, so drop any booked marker once that commits
+    public void clear(Long slotId) {
+        if (!enabled || redisTemplate == null) {
+            return;
+        }
+        Runnable delete = () -> {
+            try {
+                redisTemplate.delete(KEY_PREFIX + slotId);
+            } catch (Exception e) {
+                System.err.println("Failed to clear slot claim: " + e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete.run();
+                }
+            });
+        } else {
+            delete.run();
+        }
+    }
+
+    private void run(RedisScript<Long> script, String key, String... args) {
+        try {
+            execute(script, key, args);
+        } catch (Exception e) {
+            // The claim's TTL cleans up after us
+            System.err.println("Failed to settle slot claim " + key + ": " + e.getMessage());
+        }
+    }
+
+    // Plain string arguments; the template's JSON value serializer would quote them
+    private long execute(RedisScript<Long> script, String key, String... args) {
+        Long result = redisTemplate.execute(script, RedisSerializer.string(), null, List.of(key), (Object[]) args);
+        return result != null ? result : 0;
+    }
+}
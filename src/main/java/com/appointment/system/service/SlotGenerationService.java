@@ -2,17 +2,26 @@ package com.appointment.system.service;
 
 import com.appointment.system.entity.AppointmentSlot;
 import com.appointment.system.entity.DoctorSchedule;
+import com.appointment.system.entity.User;
+import com.appointment.system.repository.AppointmentSlotBulkWriter;
 import com.appointment.system.repository.AppointmentSlotRepository;
 import com.appointment.system.repository.DoctorScheduleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class SlotGenerationService {
@@ -23,53 +32,113 @@ public class SlotGenerationService {
     @Autowired
     private DoctorScheduleRepository doctorScheduleRepository;
 
+    @Autowired
+    private AppointmentSlotBulkWriter appointmentSlotBulkWriter;
+
+    @Autowired
+    private SlotAvailabilityIndex slotAvailabilityIndex;
+
     // Fixed to 30 days for 1-month scheduling
     private final int daysAhead = 30;
 
+    // "diff" (one range read, insert the missing slots) or "upsert" (INSERT ... ON CONFLICT DO NOTHING, PostgreSQL)
+    @Value("${app.slots.generation.mode:diff}")
+    private String generationMode;
+
     @Transactional
     public void generateSlotsForDoctor(DoctorSchedule schedule) {
+        generateSlotsForDoctor(schedule.getDoctor(), List.of(schedule));
+    }
+
+    // One pass over the window for all of a doctor's schedules: a single date scan, range read and batch insert
+    @Transactional
+    public int generateSlotsForDoctor(User doctor, List<DoctorSchedule> schedules) {
         LocalDate startDate = LocalDate.now().plusDays(1); // Start from tomorrow
-        LocalDate endDate = startDate.plusDays(daysAhead); // Exactly 30 days ahead
+        return generateSlots(doctor, schedules, startDate, getHorizonEndDate());
+    }
 
-        List<AppointmentSlot> slotsToCreate = new ArrayList<>();
+    // Last date the rolling window should cover: exactly 30 days after tomorrow
+    public LocalDate getHorizonEndDate() {
+        return LocalDate.now().plusDays(1).plusDays(daysAhead);
+    }
+
+    @Transactional
+    public int generateSlots(User doctor, List<DoctorSchedule> schedules, LocalDate startDate, LocalDate endDate) {
+        long startedAt = System.currentTimeMillis();
+
+        Map<DayOfWeek, List<DoctorSchedule>> schedulesByDay = new EnumMap<>(DayOfWeek.class);
+        for (DoctorSchedule schedule : schedules) {
+            schedulesByDay.computeIfAbsent(schedule.getDayOfWeek(), day -> new ArrayList<>()).add(schedule);
+        }
 
+        List<LocalDateTime> candidateTimes = new ArrayList<>();
         for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            if (date.getDayOfWeek() == schedule.getDayOfWeek()) {
-                List<AppointmentSlot> dailySlots = generateDailySlots(schedule, date);
-                slotsToCreate.addAll(dailySlots);
+            for (DoctorSchedule schedule : schedulesByDay.getOrDefault(date.getDayOfWeek(), List.of())) {
+                candidateTimes.addAll(generateDailySlotTimes(schedule, date));
             }
         }
 
-        // Batch save all slots
-        appointmentSlotRepository.saveAll(slotsToCreate);
-        System.out.println("Generated " + slotsToCreate.size() + " slots for doctor " +
-                          schedule.getDoctor().getFirstName() + " " + schedule.getDoctor().getLastName() +
-                          " for " + schedule.getDayOfWeek());
+        int created;
+        if ("upsert".equalsIgnoreCase(generationMode)) {
+            created = insertSlotsIfAbsent(doctor, candidateTimes, startDate, endDate);
+        } else {
+            created = insertMissingSlots(doctor, candidateTimes, startDate, endDate);
+        }
+
+        System.out.println("Generated " + created + " slots for doctor " +
+                          doctor.getFirstName() + " " + doctor.getLastName() +
+                          " across " + schedules.size() + " schedule(s) in " + (System.currentTimeMillis() - startedAt) + " ms");
+        return created;
     }
 
-    private List<AppointmentSlot> generateDailySlots(DoctorSchedule schedule, LocalDate date) {
-        List<AppointmentSlot> slots = new ArrayList<>();
-        LocalTime currentTime = schedule.getStartTime();
+    private int insertMissingSlots(User doctor, List<LocalDateTime> candidateTimes,
+                                   LocalDate startDate, LocalDate endDate) {
+        // One range query for the whole window instead of an exists probe per slot
+        Set<LocalDateTime> existingTimes = new HashSet<>(appointmentSlotRepository.findSlotTimesByDoctorAndDateRange(
+            doctor.getId(), startDate.atStartOfDay(), endDate.atTime(23, 59, 59)));
 
-        while (currentTime.isBefore(schedule.getEndTime())) {
-            // Skip break time if configured
-            if (isInBreakTime(currentTime, schedule)) {
-                currentTime = currentTime.plusMinutes(schedule.getSlotDurationMinutes());
-                continue;
+        List<LocalDateTime> slotTimesToCreate = new ArrayList<>();
+        for (LocalDateTime slotDateTime : candidateTimes) {
+            if (existingTimes.add(slotDateTime)) {
+                slotTimesToCreate.add(slotDateTime);
             }
+        }
 
-            LocalDateTime slotDateTime = LocalDateTime.of(date, currentTime);
+        // Batch insert all slots
+        int created = appointmentSlotBulkWriter.insertSlots(doctor.getId(), slotTimesToCreate);
+        refreshAvailabilityIndex(doctor, created, startDate, endDate);
+        return created;
+    }
 
-            // Check if slot already exists
-            if (!appointmentSlotRepository.existsByDoctorAndSlotDateTime(schedule.getDoctor(), slotDateTime)) {
-                AppointmentSlot slot = new AppointmentSlot(schedule.getDoctor(), slotDateTime);
-                slots.add(slot);
-            }
+    private int insertSlotsIfAbsent(User doctor, List<LocalDateTime> candidateTimes,
+                                    LocalDate startDate, LocalDate endDate) {
+        // Let the unique constraint reject duplicates instead of reading existing slots first
+        int created = appointmentSlotBulkWriter.insertSlotsIfAbsent(doctor.getId(), candidateTimes);
+        refreshAvailabilityIndex(doctor, created, startDate, endDate);
+        return created;
+    }
+
+    private void refreshAvailabilityIndex(User doctor, int created, LocalDate startDate, LocalDate endDate) {
+        // JDBC batches don't hand back entities, so reload the window once to pick up generated ids
+        if (created > 0 && slotAvailabilityIndex.isEnabled()) {
+            slotAvailabilityIndex.addSlots(appointmentSlotRepository.findAllSlotsByDoctorAndDateRange(
+                doctor.getId(), startDate.atStartOfDay(), endDate.atTime(23, 59, 59)));
+        }
+    }
 
+    private List<LocalDateTime> generateDailySlotTimes(DoctorSchedule schedule, LocalDate date) {
+        List<LocalDateTime> slotTimes = new ArrayList<>();
+        LocalTime currentTime = schedule.getStartTime();
+
+        while (currentTime.isBefore(schedule.getEndTime())) {
+            // Skip break time if configured
+            if (!isInBreakTime(currentTime, schedule)) {
+                slotTimes.add(LocalDateTime.of(date, currentTime));
+            }
             currentTime = currentTime.plusMinutes(schedule.getSlotDurationMinutes());
         }
 
-        return slots;
+        return slotTimes;
     }
 
     private boolean isInBreakTime(LocalTime currentTime, DoctorSchedule schedule) {
@@ -81,11 +150,17 @@ public class SlotGenerationService {
     }
 
     public List<AppointmentSlot> getAvailableSlots(Long doctorId, LocalDate startDate, LocalDate endDate) {
+        // Serve from the in-memory index when it covers the range, otherwise hit the database
+        Optional<List<AppointmentSlot>> indexed = slotAvailabilityIndex.findAvailableSlots(doctorId, startDate, endDate);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
 
         return appointmentSlotRepository.findAvailableSlotsByDoctorAndDateRange(
-            doctorId, startDateTime, endDateTime);
+            doctorId, startDateTime, endDateTime, LocalDateTime.now());
     }
 
     public List<AppointmentSlot> getAllSlotsForDoctor(Long doctorId, LocalDate startDate, LocalDate endDate) {
@@ -0,0 +1,149 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.Appointment;
+import com.appointment.system.entity.AppointmentSlot;
+import com.appointment.system.repository.AppointmentSlotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+// Reserve-then-confirm: a hold keeps a slot out of listings for a few minutes while the patient finishes booking.
+// The hold columns are the source of truth and lapse on their own; the sweeper only returns expired slots to the index.
+@Service
+public class SlotHoldService {
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private SlotAvailabilityIndex slotAvailabilityIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.booking.hold-minutes:5}")
+    private long holdMinutes;
+
+    private final DelayQueue<HoldExpiry> expiries = new DelayQueue<>();
+
+    private Thread sweeper;
+
+    @PostConstruct
+    public void start() {
+        meterRegistry.gaugeCollectionSize("appointment.holds.pending", List.of(), expiries);
+
+        sweeper = new Thread(this::sweep, "slot-hold-sweeper");
+        sweeper.setDaemon(true);
+        sweeper.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.interrupt();
+        }
+    }
+
+    // Holds placed before a restart still need to be returned to the index when they lapse
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadHolds() {
+        List<AppointmentSlot> held = appointmentSlotRepository.findByHeldUntilAfter(LocalDateTime.now());
+        held.forEach(slot -> expiries.add(new HoldExpiry(slot.getId(), slot.getHeldUntil())));
+        if (!held.isEmpty()) {
+            System.out.println("Reloaded " + held.size() + " active slot holds");
+        }
+    }
+
+    // Places the hold, or extends it if this patient already holds the slot
+    public AppointmentSlot hold(Long patientId, Long slotId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plusMinutes(holdMinutes);
+        if (appointmentSlotRepository.placeHold(slotId, patientId, until, now) == 0) {
+            if (!appointmentSlotRepository.existsById(slotId)) {
+                throw new RuntimeException("Appointment slot not found");
+            }
+            throw new RuntimeException("Appointment slot is not available");
+        }
+
+        AppointmentSlot slot = appointmentSlotRepository.findById(slotId)
+                .orElseThrow(() -> new RuntimeException("Appointment slot not found"));
+        slotAvailabilityIndex.markHeld(slot);
+        expiries.add(new HoldExpiry(slotId, until));
+        meterRegistry.counter("appointment.holds", "outcome", "placed").increment();
+        return slot;
+    }
+
+    public Appointment confirm(Long patientId, Long slotId, String patientNotes) {
+        AppointmentSlot slot = appointmentSlotRepository.findById(slotId)
+                .orElseThrow(() -> new RuntimeException("Appointment slot not found"));
+        if (!patientId.equals(slot.getHeldBy()) || !slot.isHeldAt(LocalDateTime.now())) {
+            throw new RuntimeException("No active hold on this slot");
+        }
+
+        // The booking paths let the holder through and clear the hold in the same write
+        Appointment appointment = appointmentService.bookHeldAppointment(patientId, slotId, patientNotes);
+        meterRegistry.counter("appointment.holds", "outcome", "confirmed").increment();
+        return appointment;
+    }
+
+    public void release(Long patientId, Long slotId) {
+        if (appointmentSlotRepository.releaseHold(slotId, patientId, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("No active hold on this slot");
+        }
+        appointmentSlotRepository.findById(slotId).ifPresent(slotAvailabilityIndex::markAvailable);
+        meterRegistry.counter("appointment.holds", "outcome", "released").increment();
+    }
+
+    private void sweep() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                expire(expiries.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("Error expiring slot hold: " + e.getMessage());
+            }
+        }
+    }
+
+    private void expire(HoldExpiry expiry) {
+        // A no-op when the hold was confirmed, released or extended; an extension has its own entry in the queue
+        if (appointmentSlotRepository.clearExpiredHold(expiry.slotId(), LocalDateTime.now()) == 0) {
+            return;
+        }
+        appointmentSlotRepository.findById(expiry.slotId())
+                .filter(slot -> !slot.getIsBooked() && slot.getIsAvailable())
+                .ifPresent(slotAvailabilityIndex::markAvailable);
+        meterRegistry.counter("appointment.holds", "outcome", "expired").increment();
+    }
+
+    private record HoldExpiry(Long slotId, LocalDateTime until) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            // Fire just after the hold lapses, since a hold is still live at exactly heldUntil
+            long millis = Duration.between(LocalDateTime.now(), until).toMillis() + 1;
+            return unit.convert(millis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return until.compareTo(((HoldExpiry) other).until);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.DoctorSchedule;
+import com.appointment.system.entity.SlotHorizonCheckpoint;
+import com.appointment.system.entity.User;
+import com.appointment.system.repository.DoctorScheduleRepository;
+import com.appointment.system.repository.SlotHorizonCheckpointRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class SlotHorizonService {
+
+    @Autowired
+    private DoctorScheduleRepository doctorScheduleRepository;
+
+    @Autowired
+    private SlotHorizonCheckpointRepository slotHorizonCheckpointRepository;
+
+    @Autowired
+    private SlotGenerationService slotGenerationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("slotHorizonExecutor")
+    private TaskExecutor slotHorizonExecutor;
+
+    @Value("${app.slots.horizon.partition-size:100}")
+    private int partitionSize;
+
+    public void extendHorizon() {
+        long startedAt = System.nanoTime();
+        LocalDate target = slotGenerationService.getHorizonEndDate();
+
+        Map<Long, List<DoctorSchedule>> schedulesByDoctor = new LinkedHashMap<>();
+        for (DoctorSchedule schedule : doctorScheduleRepository.findAllActiveSchedules()) {
+            schedulesByDoctor.computeIfAbsent(schedule.getDoctor().getId(), id -> new ArrayList<>()).add(schedule);
+        }
+
+        AtomicInteger doctorsExtended = new AtomicInteger();
+        AtomicInteger doctorsFailed = new AtomicInteger();
+        AtomicInteger slotsCreated = new AtomicInteger();
+
+        // Each partition runs on one worker; each doctor commits in its own short transaction
+        List<List<DoctorSchedule>> doctors = new ArrayList<>(schedulesByDoctor.values());
+        List<CompletableFuture<Void>> partitions = new ArrayList<>();
+        for (int from = 0; from < doctors.size(); from += partitionSize) {
+            List<List<DoctorSchedule>> partition = doctors.subList(from, Math.min(from + partitionSize, doctors.size()));
+            partitions.add(CompletableFuture.runAsync(() -> {
+                for (List<DoctorSchedule> schedules : partition) {
+                    try {
+                        slotsCreated.addAndGet(extendDoctor(schedules.get(0).getDoctor(), schedules, target));
+                        doctorsExtended.incrementAndGet();
+                    } catch (Exception e) {
+                        doctorsFailed.incrementAndGet();
+                        System.err.println("Failed to extend slots for doctor " + schedules.get(0).getDoctor().getId() +
+                                           ": " + e.getMessage());
+                    }
+                }
+            }, slotHorizonExecutor));
+        }
+        CompletableFuture.allOf(partitions.toArray(new CompletableFuture[0])).join();
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        meterRegistry.timer("slots.horizon.run").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("slots.horizon.doctors", "outcome", "extended").increment(doctorsExtended.get());
+        meterRegistry.counter("slots.horizon.doctors", "outcome", "failed").increment(doctorsFailed.get());
+        meterRegistry.counter("slots.horizon.slots.created").increment(slotsCreated.get());
+
+        double seconds = Math.max(elapsedNanos / 1_000_000_000.0, 0.001);
+        System.out.println(String.format(
+            "Slot horizon extended to %s: %d doctors (%d failed), %d slots in %.1f s (%.1f doctors/s)",
+            target, doctorsExtended.get(), doctorsFailed.get(), slotsCreated.get(), seconds,
+            doctorsExtended.get() / seconds));
+    }
+
+    private int extendDoctor(User doctor, List<DoctorSchedule> schedules, LocalDate target) {
+        Integer created = transactionTemplate.execute(status -> {
+            SlotHorizonCheckpoint checkpoint = slotHorizonCheckpointRepository.findById(doctor.getId())
+                    .orElseGet(() -> new SlotHorizonCheckpoint(doctor.getId(), LocalDate.now()));
+
+            // Already extended by an earlier (possibly interrupted) run tonight
+            if (!checkpoint.getGeneratedThrough().isBefore(target)) {
+                return 0;
+            }
+
+            // Normally just one new day, but catches up if previous nights were missed
+            LocalDate startDate = checkpoint.getGeneratedThrough().plusDays(1);
+            if (startDate.isBefore(LocalDate.now().plusDays(1))) {
+                startDate = LocalDate.now().plusDays(1);
+            }
+
+            int slots = slotGenerationService.generateSlots(doctor, schedules, startDate, target);
+            checkpoint.setGeneratedThrough(target);
+            slotHorizonCheckpointRepository.save(checkpoint);
+            return slots;
+        });
+        return created != null ? created : 0;
+    }
+}
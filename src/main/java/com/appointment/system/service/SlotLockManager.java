@@ -0,0 +1,54 @@
+package com.appointment.system.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+@Component
+public class SlotLockManager {
+
+    private final ReentrantLock[] stripes;
+
+    private final Timer lockWaitTimer;
+
+    public SlotLockManager(@Value("${app.booking.lock-stripes:1024}") int stripeCount,
+                           MeterRegistry meterRegistry) {
+        // Round up to a power of two so the stripe index is a cheap mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.lockWaitTimer = Timer.builder("appointment.booking.lock.wait")
+                .description("Time spent waiting for the in-process slot lock")
+                .register(meterRegistry);
+    }
+
+    public <T> T executeWithSlotLock(Long slotId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(slotId);
+
+        long waitStart = System.nanoTime();
+        lock.lock();
+        lockWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(Long slotId) {
+        int hash = slotId.hashCode();
+        // Spread the bits so sequential slot IDs don't cluster on neighbouring stripes
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,119 @@
+package com.appointment.system.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets keyed by caller-chosen names. With Redis the bucket is shared by every node (one Lua call per request);
+// without it, or while Redis is unreachable, each node keeps its own buckets.
+@Component
+public class TokenBucketLimiter {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    // Refills from the elapsed time on Redis' own clock, takes a token if there is one, and otherwise returns the wait in ms
+    private static final RedisScript<Long> TAKE = new DefaultRedisScript<>(
+        "local rate = tonumber(ARGV[1]) " +
+        "local burst = tonumber(ARGV[2]) " +
+        "local time = redis.call('TIME') " +
+        "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+        "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+        "local tokens = tonumber(state[1]) or burst " +
+        "local ts = tonumber(state[2]) or now " +
+        "tokens = math.min(burst, tokens + math.max(0, now - ts) * rate / 1000) " +
+        "local wait = 0 " +
+        "if tokens >= 1 then tokens = tokens - 1 else wait = math.ceil((1 - tokens) * 1000 / rate) end " +
+        "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now)) " +
+        "redis.call('PEXPIRE', KEYS[1], math.ceil(burst * 1000 / rate) + 1000) " +
+        "return wait",
+        Long.class);
+
+    // Only present when app.redis.enabled=true
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final Map<String, Bucket> buckets;
+
+    // 0 while Redis is healthy, otherwise when it may be tried again
+    private final AtomicLong redisRetryAt = new AtomicLong();
+
+    private final long redisBackoffMs;
+
+    public TokenBucketLimiter(@Value("${app.booking.admission.local-buckets:100000}") int maxBuckets,
+                              @Value("${app.booking.admission.redis-backoff-ms:5000}") long redisBackoffMs) {
+        this.redisBackoffMs = redisBackoffMs;
+        // An evicted bucket was idle long enough to be full again, unless the map is badly undersized
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxBuckets;
+            }
+        };
+    }
+
+    // Returns 0 if a token was taken, otherwise the milliseconds until one will be available
+    public long tryTake(String key, double ratePerSecond, int burst) {
+        if (redisTemplate != null && redisUsable()) {
+            try {
+                Long wait = redisTemplate.execute(TAKE, RedisSerializer.string(), null, List.of(KEY_PREFIX + key),
+                    String.valueOf(ratePerSecond), String.valueOf(burst));
+                redisRetryAt.set(0);
+                return wait != null ? wait : 0;
+            } catch (Exception e) {
+                redisRetryAt.set(System.currentTimeMillis() + redisBackoffMs);
+                System.err.println("Rate limiter unavailable in Redis, using local buckets for " + redisBackoffMs + " ms: " + e.getMessage());
+            }
+        }
+        return takeLocally(key, ratePerSecond, burst);
+    }
+
+    // Circuit breaker: after a failure every request goes local for the backoff, so an outage costs one timeout per backoff
+    // rather than two per booking. Once it has passed, a single request probes Redis while the rest stay local.
+    private boolean redisUsable() {
+        long retryAt = redisRetryAt.get();
+        if (retryAt == 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        return now >= retryAt && redisRetryAt.compareAndSet(retryAt, now + redisBackoffMs);
+    }
+
+    private long takeLocally(String key, double ratePerSecond, int burst) {
+        Bucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(burst));
+        }
+        return bucket.take(ratePerSecond, burst);
+    }
+
+    private static class Bucket {
+
+        private double tokens;
+
+        private long refilledAt = System.nanoTime();
+
+        Bucket(int burst) {
+            this.tokens = burst;
+        }
+
+        synchronized long take(double ratePerSecond, int burst) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerSecond / 1_000_000_000.0);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * 1000 / ratePerSecond);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Principals for the JWT filter only: entries never carry the password hash, so login always reads the database
+@Component
+public class UserPrincipalCache {
+
+    // v2: entries without credentials; v1 entries still age out on their own TTL
+    private static final String REDIS_KEY_PREFIX = "user:principal:v2:";
+
+    // Second tier shared across nodes, only present when app.redis.enabled=true
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final long ttlMillis;
+
+    private final Map<String, CachedUser> users;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public UserPrincipalCache(@Value("${app.security.principal-cache.max-size:10000}") int maxSize,
+                              @Value("${app.security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.localHits = meterRegistry.counter("users.principal.cache", "result", "hit", "tier", "local");
+        this.redisHits = meterRegistry.counter("users.principal.cache", "result", "hit", "tier", "redis");
+        this.misses = meterRegistry.counter("users.principal.cache", "result", "miss", "tier", "none");
+        meterRegistry.gaugeMapSize("users.principal.cache.size", List.of(), users);
+    }
+
+    public User get(String email) {
+        synchronized (this) {
+            CachedUser cached = users.get(email);
+            if (cached != null && cached.expiresAt() >= System.currentTimeMillis()) {
+                localHits.increment();
+                return cached.user();
+            }
+            users.remove(email);
+        }
+
+        User user = getFromRedis(email);
+        if (user != null) {
+            redisHits.increment();
+            putLocal(email, user);
+            return user;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    // Returns the cached copy, which is what callers should hand out as the principal
+    public User put(User user) {
+        Map<String, Object> snapshot = toSnapshot(user);
+        User principal = fromSnapshot(snapshot);
+        putLocal(user.getEmail(), principal);
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + user.getEmail(), snapshot, Duration.ofMillis(ttlMillis));
+            } catch (Exception e) {
+                System.err.println("Failed to cache principal in Redis: " + e.getMessage());
+            }
+        }
+        return principal;
+    }
+
+    public void evict(String email) {
+        synchronized (this) {
+            users.remove(email);
+        }
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.delete(REDIS_KEY_PREFIX + email);
+            } catch (Exception e) {
+                System.err.println("Failed to evict principal from Redis: " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void putLocal(String email, User user) {
+        users.put(email, new CachedUser(user, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @SuppressWarnings("unchecked")
+    private User getFromRedis(String email) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            Object snapshot = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + email);
+            return snapshot instanceof Map ? fromSnapshot((Map<String, Object>) snapshot) : null;
+        } catch (Exception e) {
+            // A Redis outage degrades to the database lookup
+            System.err.println("Failed to read principal from Redis: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // What the JWT filter and the controllers read from a principal, never the password
+    private Map<String, Object> toSnapshot(User user) {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("id", user.getId());
+        snapshot.put("firstName", user.getFirstName());
+        snapshot.put("lastName", user.getLastName());
+        snapshot.put("email", user.getEmail());
+        snapshot.put("phoneNumber", user.getPhoneNumber());
+        snapshot.put("role", user.getRole().name());
+        snapshot.put("isActive", user.getIsActive());
+        snapshot.put("specialization", user.getSpecialization());
+        snapshot.put("licenseNumber", user.getLicenseNumber());
+        snapshot.put("createdAt", user.getCreatedAt() != null ? user.getCreatedAt().toString() : null);
+        snapshot.put("updatedAt", user.getUpdatedAt() != null ? user.getUpdatedAt().toString() : null);
+        return snapshot;
+    }
+
+    private User fromSnapshot(Map<String, Object> snapshot) {
+        User user = new User();
+        user.setId(((Number) snapshot.get("id")).longValue());
+        user.setFirstName((String) snapshot.get("firstName"));
+        user.setLastName((String) snapshot.get("lastName"));
+        user.setEmail((String) snapshot.get("email"));
+        user.setPhoneNumber((String) snapshot.get("phoneNumber"));
+        user.setRole(User.Role.valueOf((String) snapshot.get("role")));
+        user.setIsActive((Boolean) snapshot.get("isActive"));
+        user.setSpecialization((String) snapshot.get("specialization"));
+        user.setLicenseNumber((String) snapshot.get("licenseNumber"));
+        if (snapshot.get("createdAt") != null) {
+            user.setCreatedAt(LocalDateTime.parse((String) snapshot.get("createdAt")));
+        }
+        if (snapshot.get("updatedAt") != null) {
+            user.setUpdatedAt(LocalDateTime.parse((String) snapshot.get("updatedAt")));
+        }
+        return user;
+    }
+
+    private record CachedUser(User user, long expiresAt) {}
+}
@@ -4,6 +4,7 @@ import com.appointment.system.entity.User;
 import com.appointment.system.entity.DoctorSchedule;
 import com.appointment.system.repository.UserRepository;
 import com.appointment.system.repository.DoctorScheduleRepository;
+import com.appointment.system.security.AuthenticatedTokenCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -14,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,14 +32,33 @@ public class UserService implements UserDetailsService {
     private DoctorScheduleRepository doctorScheduleRepository;
 
     @Autowired
-    private SlotGenerationService slotGenerationService;
+    private DoctorOnboardingService doctorOnboardingService;
 
+    @Autowired
+    private AuthenticatedTokenCache authenticatedTokenCache;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    // Login checks the password, so it always reads the database
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
     }
 
+    // Principal for an already validated JWT; served from the principal cache, which holds no credentials
+    public UserDetails loadPrincipalByUsername(String email) throws UsernameNotFoundException {
+        User cached = userPrincipalCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        return userPrincipalCache.put(user);
+    }
+
     @Transactional
     public User createUser(User user) {
         if (userRepository.existsByEmail(user.getEmail())) {
@@ -59,6 +80,7 @@ public class UserService implements UserDetailsService {
         DayOfWeek[] workingDays = {DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
                                    DayOfWeek.THURSDAY, DayOfWeek.FRIDAY};
 
+        List<DoctorSchedule> schedules = new ArrayList<>();
         for (DayOfWeek day : workingDays) {
             DoctorSchedule schedule = new DoctorSchedule();
             schedule.setDoctor(doctor);
@@ -69,12 +91,12 @@ public class UserService implements UserDetailsService {
             schedule.setBreakStartTime(LocalTime.of(12, 0)); // 12:00 PM (lunch break start)
             schedule.setBreakEndTime(LocalTime.of(13, 0));   // 1:00 PM (lunch break end)
             schedule.setIsActive(true);
-
-            DoctorSchedule savedSchedule = doctorScheduleRepository.save(schedule);
-
-            // Generate slots for the next 30 days for this schedule
-            slotGenerationService.generateSlotsForDoctor(savedSchedule);
+            schedules.add(schedule);
         }
+        doctorScheduleRepository.saveAll(schedules);
+
+        // Slots for the next 30 days are materialized in the background once registration commits
+        doctorOnboardingService.enqueueSlotGeneration(doctor);
     }
 
     public Optional<User> findByEmail(String email) {
@@ -98,7 +120,17 @@ public class UserService implements UserDetailsService {
     }
 
     public User updateUser(User user) {
-        return userRepository.save(user);
+        // Read before saving: after an email change the entries are still cached under the old address
+        Optional<String> previousEmail = user.getId() != null ? userRepository.findEmailById(user.getId()) : Optional.empty();
+        User savedUser = userRepository.save(user);
+        // Cached principals would otherwise keep serving the old user state
+        previousEmail.filter(email -> !email.equals(savedUser.getEmail())).ifPresent(email -> {
+            userPrincipalCache.evict(email);
+            authenticatedTokenCache.evictUser(email);
+        });
+        userPrincipalCache.evict(savedUser.getEmail());
+        authenticatedTokenCache.evictUser(savedUser.getEmail());
+        return savedUser;
     }
 
     public void deactivateUser(Long userId) {
@@ -106,6 +138,8 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setIsActive(false);
         userRepository.save(user);
+        userPrincipalCache.evict(user.getEmail());
+        authenticatedTokenCache.evictUser(user.getEmail());
     }
 
     public boolean existsByEmail(String email) {
@@ -0,0 +1,83 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.User;
+import com.appointment.system.entity.WaitlistEntry;
+import com.appointment.system.repository.UserRepository;
+import com.appointment.system.repository.WaitlistEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class WaitlistService {
+
+    // Candidates read per attempt; only entries lost to a concurrent cancellation make us read again
+    private static final int CLAIM_BATCH = 10;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public WaitlistEntry join(Long patientId, Long doctorId, LocalDate date) {
+        if (date.isBefore(LocalDate.now())) {
+            throw new RuntimeException("Cannot join the waitlist for a past date");
+        }
+        User doctor = userRepository.findById(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor not found"));
+        if (doctor.getRole() != User.Role.DOCTOR) {
+            throw new RuntimeException("User is not a doctor");
+        }
+        if (waitlistEntryRepository.existsByPatientIdAndDoctorIdAndWaitDateAndStatus(
+                patientId, doctorId, date, WaitlistEntry.WaitlistStatus.WAITING)) {
+            throw new RuntimeException("Already on the waitlist for this day");
+        }
+        return waitlistEntryRepository.save(new WaitlistEntry(patientId, doctorId, date));
+    }
+
+    public void leave(Long patientId, Long entryId) {
+        if (waitlistEntryRepository.leave(entryId, patientId, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Waitlist entry not found");
+        }
+    }
+
+    public List<WaitlistEntry> getPatientEntries(Long patientId) {
+        return waitlistEntryRepository.findByPatientIdAndWaitDateGreaterThanEqualOrderByWaitDate(patientId, LocalDate.now());
+    }
+
+    // Takes the first waiting entry for the doctor/day by compare-and-set, in the caller's transaction. Concurrent
+    // cancellations race on different entries instead of queueing on a lock; a lost race just moves on to the next one.
+    @Transactional
+    public Optional<WaitlistEntry> claimNext(Long doctorId, LocalDate date, Long excludedPatientId) {
+        while (true) {
+            List<Long> candidates = waitlistEntryRepository.findWaitingIds(
+                doctorId, date, excludedPatientId, PageRequest.of(0, CLAIM_BATCH));
+            if (candidates.isEmpty()) {
+                return Optional.empty();
+            }
+            for (Long id : candidates) {
+                if (waitlistEntryRepository.promote(id, LocalDateTime.now()) == 1) {
+                    return waitlistEntryRepository.findById(id);
+                }
+            }
+        }
+    }
+
+    // For a claimed entry whose patient can't take the slot after all; the caller moves on to the next one in line
+    @Transactional
+    public void close(WaitlistEntry entry) {
+        waitlistEntryRepository.close(entry.getId(), LocalDateTime.now());
+    }
+
+    @Transactional
+    public void attachAppointment(WaitlistEntry entry, Long appointmentId) {
+        waitlistEntryRepository.attachAppointment(entry.getId(), appointmentId);
+    }
+}
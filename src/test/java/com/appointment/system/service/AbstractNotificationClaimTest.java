@@ -0,0 +1,114 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.Appointment;
+import com.appointment.system.entity.AppointmentSlot;
+import com.appointment.system.entity.NotificationQueue;
+import com.appointment.system.entity.User;
+import com.appointment.system.repository.AppointmentRepository;
+import com.appointment.system.repository.AppointmentSlotRepository;
+import com.appointment.system.repository.NotificationQueueRepository;
+import com.appointment.system.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Several dispatcher "nodes" claim the same backlog at once; every row must end up claimed by exactly one of them
+abstract class AbstractNotificationClaimTest {
+
+    static final int ROWS = 300;
+    static final int NODES = 8;
+
+    @Autowired
+    NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    NotificationQueueRepository notificationQueueRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    void assertEachRowClaimedOnce(boolean skipLocked) throws Exception {
+        ReflectionTestUtils.setField(notificationDispatcher, "skipLocked", skipLocked);
+        List<Long> rowIds = insertDueNotifications();
+
+        Map<Long, String> owners = new ConcurrentHashMap<>();
+        List<Long> duplicates = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(NODES);
+        try {
+            List<Future<?>> nodes = new ArrayList<>();
+            for (int n = 0; n < NODES; n++) {
+                String node = "node-" + n;
+                nodes.add(pool.submit(() -> {
+                    start.await();
+                    while (true) {
+                        List<NotificationQueue> page = notificationDispatcher.claimPage(node, LocalDateTime.now());
+                        if (page.isEmpty()) {
+                            return null;
+                        }
+                        for (NotificationQueue row : page) {
+                            if (owners.putIfAbsent(row.getId(), node) != null) {
+                                synchronized (duplicates) {
+                                    duplicates.add(row.getId());
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> node : nodes) {
+                node.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(duplicates).isEmpty();
+        assertThat(owners.keySet()).containsExactlyInAnyOrderElementsOf(rowIds);
+        // The stored claim agrees with the node that was handed each row
+        notificationQueueRepository.findAllById(rowIds)
+            .forEach(row -> assertThat(row.getClaimedBy()).isEqualTo(owners.get(row.getId())));
+    }
+
+    private List<Long> insertDueNotifications() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        User doctor = userRepository.save(new User("Dana", "Doctor", "claim-doctor-" + tag + "@example.com", "password123", User.Role.DOCTOR));
+        User patient = userRepository.save(new User("Pat", "Patient", "claim-patient-" + tag + "@example.com", "password123", User.Role.PATIENT));
+        AppointmentSlot slot = appointmentSlotRepository.save(new AppointmentSlot(doctor, LocalDateTime.now().plusDays(2).withNano(0)));
+
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentSlot(slot);
+        appointment.setAppointmentDateTime(slot.getSlotDateTime());
+        appointment.setStatus(Appointment.AppointmentStatus.CONFIRMED);
+        appointment = appointmentRepository.save(appointment);
+
+        LocalDateTime due = LocalDateTime.now().minusMinutes(1);
+        List<NotificationQueue> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new NotificationQueue(appointment, NotificationQueue.NotificationType.EMAIL, patient.getEmail(), due));
+        }
+        return notificationQueueRepository.saveAll(rows).stream().map(NotificationQueue::getId).toList();
+    }
+}
@@ -0,0 +1,169 @@
+package com.appointment.system.service;
+
+import com.appointment.system.config.RabbitMQConfig;
+import com.appointment.system.entity.AppointmentSlot;
+import com.appointment.system.entity.BookingRequest;
+import com.appointment.system.entity.User;
+import com.appointment.system.queue.AppointmentBookingConsumer.BookAppointmentMessage;
+import com.appointment.system.repository.AppointmentRepository;
+import com.appointment.system.repository.AppointmentSlotRepository;
+import com.appointment.system.repository.BookingRequestRepository;
+import com.appointment.system.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The async booking path end to end against a real broker: publisher confirms, partition consumers, retry and dead-lettering
+@SpringBootTest(properties = {"app.rabbitmq.enabled=true", "app.waitlist.auto-promote=false"})
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class BookingRequestRabbitTest {
+
+    private static final long TIMEOUT_MS = 20_000;
+
+    @Container
+    static final RabbitMQContainer RABBIT = new RabbitMQContainer("rabbitmq:3.12-management-alpine");
+
+    @DynamicPropertySource
+    static void rabbit(DynamicPropertyRegistry registry) {
+        registry.add("spring.rabbitmq.host", RABBIT::getHost);
+        registry.add("spring.rabbitmq.port", RABBIT::getAmqpPort);
+        registry.add("spring.rabbitmq.username", RABBIT::getAdminUsername);
+        registry.add("spring.rabbitmq.password", RABBIT::getAdminPassword);
+    }
+
+    @Autowired
+    private BookingRequestService bookingRequestService;
+
+    @Autowired
+    private BookingRequestRepository bookingRequestRepository;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Test
+    void confirmedPublishIsBookedByThePartitionConsumer() throws Exception {
+        User doctor = userRepository.save(new User("Dana", "Doctor", unique("doctor"), "password123", User.Role.DOCTOR));
+        User patient = userRepository.save(new User("Pat", "Patient", unique("patient"), "password123", User.Role.PATIENT));
+        AppointmentSlot slot = appointmentSlotRepository.save(new AppointmentSlot(doctor, LocalDateTime.now().plusDays(3).withNano(0)));
+
+        // submit() only returns once the broker has acked the publish
+        BookingRequest request = bookingRequestService.submit(patient.getId(), slot.getId(), "Queued booking");
+        assertThat(request.getStatus()).isEqualTo(BookingRequest.RequestStatus.QUEUED);
+
+        BookingRequest completed = awaitCompletion(request.getRequestId());
+        assertThat(completed.getStatus()).isEqualTo(BookingRequest.RequestStatus.CONFIRMED);
+        assertThat(completed.getAppointmentId()).isNotNull();
+        assertThat(appointmentRepository.findById(completed.getAppointmentId()))
+            .hasValueSatisfying(appointment -> assertThat(appointment.getAppointmentSlot().getId()).isEqualTo(slot.getId()));
+        assertThat(appointmentSlotRepository.findById(slot.getId()).orElseThrow().getIsAvailable()).isFalse();
+    }
+
+    @Test
+    void refusedBookingIsRejectedNotDeadLettered() throws Exception {
+        User doctor = userRepository.save(new User("Dana", "Doctor", unique("doctor"), "password123", User.Role.DOCTOR));
+        AppointmentSlot slot = appointmentSlotRepository.save(new AppointmentSlot(doctor, LocalDateTime.now().plusDays(3).withNano(0)));
+
+        BookingRequest request = bookingRequestService.submit(Long.MAX_VALUE, slot.getId(), null);
+
+        BookingRequest completed = awaitCompletion(request.getRequestId());
+        assertThat(completed.getStatus()).isEqualTo(BookingRequest.RequestStatus.REJECTED);
+        assertThat(completed.getErrorMessage()).isNotBlank();
+    }
+
+    @Test
+    void unroutablePublishIsReturnedAndFailsTheRequest() {
+        // More partitions than the broker has queues for: the slot hashes to a routing key nothing is bound to
+        int declared = (int) ReflectionTestUtils.getField(bookingRequestService, "partitions");
+        int publishedAs = declared * 8;
+        long slotId = slotOutsidePartitions(declared, publishedAs);
+
+        ReflectionTestUtils.setField(bookingRequestService, "partitions", publishedAs);
+        try {
+            assertThatThrownBy(() -> bookingRequestService.submit(1L, slotId, null))
+                .hasMessageContaining("unroutable");
+        } finally {
+            ReflectionTestUtils.setField(bookingRequestService, "partitions", declared);
+        }
+
+        assertThat(bookingRequestRepository.findAll())
+            .filteredOn(request -> request.getSlotId().equals(slotId))
+            .singleElement()
+            .satisfies(request -> {
+                assertThat(request.getStatus()).isEqualTo(BookingRequest.RequestStatus.FAILED);
+                assertThat(request.getErrorMessage()).startsWith("unroutable");
+            });
+    }
+
+    @Test
+    void poisonMessageIsFailedAndDeadLetteredAfterRetries() throws Exception {
+        BookingRequest request = bookingRequestRepository.save(new BookingRequest(UUID.randomUUID().toString(), 1L, 1L, null));
+
+        // No patient id: the consumer throws on every attempt until the recoverer gives up on it
+        BookAppointmentMessage poison = new BookAppointmentMessage(request.getRequestId(), null, 1L, null);
+        rabbitTemplate.convertAndSend(RabbitMQConfig.APPOINTMENT_BOOKING_PARTITION_EXCHANGE,
+            RabbitMQConfig.partitionRoutingKey(0), poison, m -> {
+                m.getMessageProperties().setMessageId(request.getRequestId());
+                return m;
+            });
+
+        BookingRequest completed = awaitCompletion(request.getRequestId());
+        assertThat(completed.getStatus()).isEqualTo(BookingRequest.RequestStatus.FAILED);
+        assertThat(completed.getErrorMessage()).isEqualTo("Dead-lettered: Malformed booking message");
+
+        Message deadLettered = rabbitTemplate.receive(RabbitMQConfig.APPOINTMENT_BOOKING_DLQ, TIMEOUT_MS);
+        assertThat(deadLettered).isNotNull();
+        assertThat(deadLettered.getMessageProperties().getMessageId()).isEqualTo(request.getRequestId());
+        assertThat(deadLettered.getMessageProperties().getXDeathHeader())
+            .singleElement()
+            .satisfies(death -> assertThat(death.get("queue")).isEqualTo(RabbitMQConfig.partitionQueue(0)));
+    }
+
+    private BookingRequest awaitCompletion(String requestId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            BookingRequest request = bookingRequestRepository.findByRequestId(requestId).orElseThrow();
+            if (request.getStatus() != BookingRequest.RequestStatus.QUEUED) {
+                return request;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Booking request " + requestId + " still queued after " + TIMEOUT_MS + " ms");
+    }
+
+    private static long slotOutsidePartitions(int declared, int publishedAs) {
+        long slotId = 1_000_000;
+        while (RabbitMQConfig.partitionOf(slotId, publishedAs) < declared) {
+            slotId++;
+        }
+        return slotId;
+    }
+
+    private static String unique(String role) {
+        return role + "-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+    }
+}
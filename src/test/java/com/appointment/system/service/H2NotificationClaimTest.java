@@ -0,0 +1,24 @@
+package com.appointment.system.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// H2 2.1 (the version Boot manages) has no SKIP LOCKED, so it claims through the conditional UPDATE
+@SpringBootTest(properties = "app.notifications.page-size=25")
+@ActiveProfiles("test")
+class H2NotificationClaimTest extends AbstractNotificationClaimTest {
+
+    @Test
+    void detectsThatSkipLockedIsUnavailable() {
+        assertThat(ReflectionTestUtils.getField(notificationDispatcher, "skipLocked")).isEqualTo(false);
+    }
+
+    @Test
+    void conditionalUpdateClaimsEachRowOnce() throws Exception {
+        assertEachRowClaimedOnce(false);
+    }
+}
@@ -0,0 +1,84 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.NotificationQueue;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.Message;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// One SMTP connection per batch: a recipient the relay rejects must fail only its own row, not the whole batch
+@SpringBootTest(properties = {
+    // Same exclusions as the application, minus the mail sender
+    "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration,"
+        + "org.redisson.spring.starter.RedissonAutoConfiguration",
+    "spring.mail.host=localhost",
+    "spring.mail.port=3025"
+})
+@ActiveProfiles("test")
+class NotificationBatchDeliveryTest {
+
+    @RegisterExtension
+    static final GreenMailExtension GREEN_MAIL = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Test
+    void partialFailureIsMappedBackToTheFailedRows() throws Exception {
+        // GreenMail answers 501 to a RCPT line it can't parse, and a '>' in a quoted local part is one
+        List<NotificationQueue> batch = List.of(
+            email("first@example.com"),
+            email("\"bounce>one\"@example.com"),
+            email("second@example.com"),
+            email("\"bounce>two\"@example.com"),
+            email("third@example.com"));
+
+        List<String> errors = notificationService.deliverAll(batch);
+
+        assertThat(errors).hasSize(5);
+        assertThat(errors.get(0)).isNull();
+        assertThat(errors.get(1)).isNotNull();
+        assertThat(errors.get(2)).isNull();
+        assertThat(errors.get(3)).isNotNull();
+        assertThat(errors.get(4)).isNull();
+
+        MimeMessage[] received = GREEN_MAIL.getReceivedMessages();
+        assertThat(Arrays.stream(received).map(this::recipient))
+            .containsExactlyInAnyOrder("first@example.com", "second@example.com", "third@example.com");
+    }
+
+    @Test
+    void connectionFailureFailsEveryEmailInTheBatch() {
+        GREEN_MAIL.stop();
+
+        List<String> errors = notificationService.deliverAll(List.of(email("first@example.com"), email("second@example.com")));
+
+        assertThat(errors).hasSize(2).doesNotContainNull();
+    }
+
+    private NotificationQueue email(String recipient) {
+        NotificationQueue notification = new NotificationQueue(
+            null, NotificationQueue.NotificationType.EMAIL, recipient, LocalDateTime.now());
+        notification.setMessageContent("Your appointment is tomorrow at 10:00");
+        return notification;
+    }
+
+    private String recipient(MimeMessage message) {
+        try {
+            return message.getRecipients(Message.RecipientType.TO)[0].toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.appointment.system.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// PostgreSQL supports both claim paths, so both run against the same backlog shape
+@SpringBootTest(properties = "app.notifications.page-size=25")
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresNotificationClaimTest extends AbstractNotificationClaimTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @Test
+    void detectsSkipLocked() {
+        assertThat(ReflectionTestUtils.getField(notificationDispatcher, "skipLocked")).isEqualTo(true);
+    }
+
+    @Test
+    void skipLockedClaimsEachRowOnce() throws Exception {
+        assertEachRowClaimedOnce(true);
+    }
+
+    @Test
+    void conditionalUpdateClaimsEachRowOnce() throws Exception {
+        assertEachRowClaimedOnce(false);
+    }
+}
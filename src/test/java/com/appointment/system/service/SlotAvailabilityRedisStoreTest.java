@@ -0,0 +1,171 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.Appointment;
+import com.appointment.system.entity.AppointmentSlot;
+import com.appointment.system.entity.User;
+import com.appointment.system.repository.AppointmentSlotRepository;
+import com.appointment.system.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The shared availability tier against a real Redis server (embedded), with app.redis.enabled=true
+@SpringBootTest(properties = {"app.redis.enabled=true", "app.waitlist.auto-promote=false"})
+@ActiveProfiles("test")
+@DirtiesContext
+class SlotAvailabilityRedisStoreTest {
+
+    private static final RedisServer REDIS;
+    private static final int REDIS_PORT;
+
+    static {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            REDIS_PORT = socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        try {
+            REDIS = new RedisServer(REDIS_PORT);
+            REDIS.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start embedded Redis", e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void redis(DynamicPropertyRegistry registry) {
+        registry.add("spring.redis.host", () -> "localhost");
+        registry.add("spring.redis.port", () -> REDIS_PORT);
+        registry.add("spring.redis.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        REDIS.stop();
+    }
+
+    @Autowired
+    private SlotAvailabilityIndex slotAvailabilityIndex;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Test
+    void readThroughFillsTheDayAndServesLaterReadsFromRedis() {
+        User doctor = doctor();
+        LocalDate day = LocalDate.now().plusDays(5);
+        List<AppointmentSlot> slots = slots(doctor, day, 10, 11, 14);
+
+        assertThat(ids(slotAvailabilityIndex.findAvailableSlots(doctor.getId(), day, day).orElseThrow()))
+            .containsExactlyElementsOf(ids(slots));
+
+        Map<Object, Object> hash = redis().opsForHash().entries(key(doctor, day));
+        assertThat(hash).containsKeys("_loaded", "_doctor");
+        assertThat(hash.keySet()).containsAll(ids(slots).stream().map(String::valueOf).toList());
+        assertThat(redis().getExpire(key(doctor, day))).isPositive();
+        assertThat((String) hash.get("_doctor")).doesNotContain("password");
+
+        // A change made behind the index's back is not seen: the day is now answered from Redis alone
+        AppointmentSlot changed = slots.get(0);
+        changed.setIsAvailable(false);
+        appointmentSlotRepository.save(changed);
+        assertThat(ids(slotAvailabilityIndex.findAvailableSlots(doctor.getId(), day, day).orElseThrow()))
+            .containsExactlyElementsOf(ids(slots));
+    }
+
+    @Test
+    void bookingAndCancellationWriteThroughToTheLoadedDay() {
+        User doctor = doctor();
+        User patient = userRepository.save(new User("Pat", "Patient", unique("patient"), "password123", User.Role.PATIENT));
+        LocalDate day = LocalDate.now().plusDays(6);
+        List<AppointmentSlot> slots = slots(doctor, day, 9, 10);
+        Long bookedId = slots.get(0).getId();
+
+        slotAvailabilityIndex.findAvailableSlots(doctor.getId(), day, day);
+
+        Appointment appointment = appointmentService.bookAppointment(patient.getId(), bookedId, null);
+        assertThat(field(doctor, day, bookedId)).contains("|1|1|");
+        assertThat(ids(slotAvailabilityIndex.findAvailableSlots(doctor.getId(), day, day).orElseThrow()))
+            .containsExactly(slots.get(1).getId());
+
+        appointmentService.cancelAppointment(appointment.getId());
+        assertThat(field(doctor, day, bookedId)).contains("|0|1|");
+        assertThat(ids(slotAvailabilityIndex.findAvailableSlots(doctor.getId(), day, day).orElseThrow()))
+            .containsExactlyElementsOf(ids(slots));
+    }
+
+    @Test
+    void partiallyWrittenDayIsNotServedUntilLoaded() {
+        User doctor = doctor();
+        LocalDate day = LocalDate.now().plusDays(7);
+        List<AppointmentSlot> slots = slots(doctor, day, 9, 10, 11);
+
+        // A write-through to a day nobody has read yet leaves a hash with one slot and no LOADED marker
+        slotAvailabilityIndex.markAvailable(slots.get(1));
+        Map<Object, Object> partial = redis().opsForHash().entries(key(doctor, day));
+        assertThat(partial).containsOnlyKeys(String.valueOf(slots.get(1).getId()));
+
+        assertThat(ids(slotAvailabilityIndex.findAvailableSlots(doctor.getId(), day, day).orElseThrow()))
+            .containsExactlyElementsOf(ids(slots));
+        assertThat(redis().opsForHash().entries(key(doctor, day))).containsKey("_loaded");
+    }
+
+    private User doctor() {
+        return userRepository.save(new User("Dana", "Doctor", unique("doctor"), "password123", User.Role.DOCTOR));
+    }
+
+    private List<AppointmentSlot> slots(User doctor, LocalDate day, int... hours) {
+        List<AppointmentSlot> slots = new ArrayList<>();
+        for (int hour : hours) {
+            slots.add(appointmentSlotRepository.save(new AppointmentSlot(doctor, day.atTime(hour, 0))));
+        }
+        return slots;
+    }
+
+    private String field(User doctor, LocalDate day, Long slotId) {
+        return (String) redis().opsForHash().get(key(doctor, day), String.valueOf(slotId));
+    }
+
+    private StringRedisTemplate redis() {
+        return new StringRedisTemplate(redisConnectionFactory);
+    }
+
+    private static String key(User doctor, LocalDate day) {
+        return "slots:v2:day:" + doctor.getId() + ":" + day;
+    }
+
+    private static List<Long> ids(List<AppointmentSlot> slots) {
+        return slots.stream().map(AppointmentSlot::getId).toList();
+    }
+
+    private static String unique(String role) {
+        return role + "-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+    }
+}
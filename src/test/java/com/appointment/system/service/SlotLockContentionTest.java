@@ -0,0 +1,87 @@
+package com.appointment.system.service;
+
+import com.appointment.system.entity.Appointment;
+import com.appointment.system.entity.AppointmentSlot;
+import com.appointment.system.entity.User;
+import com.appointment.system.repository.AppointmentRepository;
+import com.appointment.system.repository.AppointmentSlotRepository;
+import com.appointment.system.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Without Redis, bookings for one slot serialize on its SlotLockManager stripe; racing them must yield one appointment
+@SpringBootTest(properties = {"app.booking.strategy=pessimistic", "app.waitlist.auto-promote=false"})
+@ActiveProfiles("test")
+class SlotLockContentionTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Test
+    void concurrentBookingsOfOneSlotLetExactlyOneThrough() throws Exception {
+        User doctor = userRepository.save(new User("Dana", "Doctor", "contention-doctor@example.com", "password123", User.Role.DOCTOR));
+        AppointmentSlot slot = appointmentSlotRepository.save(
+            new AppointmentSlot(doctor, LocalDateTime.now().plusDays(3).withHour(10).withMinute(0).withSecond(0).withNano(0)));
+        List<User> patients = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            patients.add(userRepository.save(
+                new User("Pat", "Patient", "contention-patient-" + i + "@example.com", "password123", User.Role.PATIENT)));
+        }
+
+        ConcurrentLinkedQueue<Appointment> booked = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (User patient : patients) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                        booked.add(appointmentService.bookAppointment(patient.getId(), slot.getId(), null));
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(booked).hasSize(1);
+        assertThat(failures).hasSize(THREADS - 1)
+            .allSatisfy(failure -> assertThat(failure).isInstanceOf(RuntimeException.class)
+                .hasMessage("Appointment slot is not available"));
+        assertThat(appointmentSlotRepository.findById(slot.getId())).get()
+            .satisfies(stored -> assertThat(stored.getIsBooked()).isTrue());
+        assertThat(appointmentRepository.findAll())
+            .filteredOn(appointment -> appointment.getAppointmentSlot().getId().equals(slot.getId()))
+            .hasSize(1);
+    }
+}